@@ -19,11 +19,23 @@ package org.applecommander.bastools.api;
 
 import org.applecommander.bastools.api.model.ApplesoftKeyword;
 import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.utils.KeywordTrie;
 
 import java.io.*;
 import java.util.*;
 
-public class ClassicTokenReader {
+/**
+ * The ClassicTokenReader mimics the Applesoft tokenizer (spaces are ignored, keywords are found
+ * anywhere they occur). Tokens are produced on demand, one source line at a time, so the memory
+ * consumed while reading is bounded by the longest line and not by the size of the program.
+ */
+public class ClassicTokenReader implements Iterator<Token> {
+    private final LineNumberReader lineNumberReader;
+    /** Tokens for the current source line; refilled by {@link LinePopulator} when drained. */
+    private final LinkedList<Token> tokens = new LinkedList<>();
+    private final LinePopulator lp = new LinePopulator(tokens);
+    private boolean eof = false;
+
     /** A handy method to generate a list of Tokens from a file name. */
     public static Queue<Token> tokenize(String filename) throws IOException {
         try (FileReader fileReader = new FileReader(filename)) {
@@ -44,43 +56,99 @@ public class ClassicTokenReader {
     }
 
     public static Queue<Token> tokenize(Reader reader) throws IOException {
-        LineNumberReader lineNumberReader = new LineNumberReader(reader);
         LinkedList<Token> tokens = new LinkedList<>();
-        while (true) {
-            String line = lineNumberReader.readLine();
-            int lineNo = lineNumberReader.getLineNumber();
-            if (line == null) break;
+        try {
+            new ClassicTokenReader(reader).forEachRemaining(tokens::add);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return tokens;
+    }
 
-            LinePopulator lp = new LinePopulator(lineNo, tokens);
-            if (line.endsWith("\\")) {
-                // Line continuation -- we just skip the eol bit
-                lp.populate(line.substring(0, line.length() - 2));
-            }
-            else {
-                lp.populate(line);
-                tokens.add(Token.eol(lineNo));
+    /**
+     * Create a pull-based token source. Note that the Reader is not closed and must remain
+     * open until all tokens have been consumed. I/O errors are reported as an
+     * {@code UncheckedIOException}.
+     */
+    public ClassicTokenReader(Reader reader) {
+        Objects.requireNonNull(reader);
+        this.lineNumberReader = new LineNumberReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (tokens.isEmpty() && !eof) {
+            readLine();
+        }
+        return !tokens.isEmpty();
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return tokens.removeFirst();
+    }
+
+    /**
+     * Read one logical line. A line continuation leaves its tokens in place so the following
+     * source line can extend them before anything is handed out.
+     */
+    private void readLine() {
+        try {
+            while (true) {
+                String line = lineNumberReader.readLine();
+                int lineNo = lineNumberReader.getLineNumber();
+                if (line == null) {
+                    lp.flush();
+                    eof = true;
+                    return;
+                }
+
+                if (line.endsWith("\\")) {
+                    // Line continuation -- we just skip the eol bit
+                    lp.populate(lineNo, line.substring(0, line.length() - 2));
+                }
+                else {
+                    lp.populate(lineNo, line);
+                    lp.flush();
+                    tokens.add(Token.eol(lineNo));
+                    return;
+                }
             }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        return tokens;
     }
 
     static class LinePopulator {
         /** These are the alternate tokens that do not start with an alphabetic character. */
         private static final Set<Character> ALT_TOKENS = Set.of('&','+','-','*','/','^','<','=','>');
-        private final int lineNo;
         private final LinkedList<Token> tokens;
-        private boolean dataFlag = false;
-        private boolean quoteFlag = false;
-        private boolean remFlag = false;
+        /**
+         * Characters of the current identifier, number, string, DATA or comment. The run is only turned
+         * into a Token once it ends, and it survives a line continuation.
+         */
+        private final StringBuilder run = new StringBuilder();
+        private Token.Type runType;
+        private int runLineNo;
+        private int lineNo;
+        private boolean dataFlag;
+        private boolean quoteFlag;
+        private boolean remFlag;
 
-        private LinePopulator(int lineNo, LinkedList<Token> tokens) {
-            this.lineNo = lineNo;
+        private LinePopulator(LinkedList<Token> tokens) {
             this.tokens = tokens;
         }
 
         // Inspired by: https://github.com/KrisKennaway/bastoken/blob/master/bastoken.py
         // and referenced with: https://6502disassembly.com/a2-rom/Applesoft.html#SymPARSE
-        public void populate(final String line) {
+        public void populate(final int lineNo, final String line) {
+            this.lineNo = lineNo;
+            this.dataFlag = false;
+            this.quoteFlag = false;
+            this.remFlag = false;
             int i = 0;
             while (i < line.length()) {
                 char ch = line.charAt(i);
@@ -104,7 +172,7 @@ public class ClassicTokenReader {
                     // ... and the (unlikely) possibility of two strings next to each other in a PRINT statement.
                     // ... aka 'PRINT "HELLO""WORLD"' which is a valid Applesoft construct.
                     if (quoteFlag) {
-                        tokens.add(Token.data(lineNo, ""));
+                        startRun(Token.Type.DATA);
                     }
                     // To mimic a string in a data token, we need to preserve the quotes
                     emitData('"');
@@ -201,110 +269,110 @@ public class ClassicTokenReader {
         }
 
         public int handleKeyword(final int base, final String line) {
-            for (ApplesoftKeyword kw : ApplesoftKeyword.values()) {
-                int lookahead_idx = base;
-                int token_idx = 0;
-                while (lookahead_idx < line.length() && token_idx < kw.text.length()) {
-                    char ch = line.charAt(lookahead_idx);
-                    if (ch == ' ') {
-                        lookahead_idx++;
-                        continue;
-                    }
-                    if (Character.toUpperCase(ch) != kw.text.charAt(token_idx)) {
-                        break;
-                    }
-                    if (token_idx == kw.text.length() - 1) {
-                        // Figure out AT/ATN/A TO
-                        if (kw == ApplesoftKeyword.AT && lookahead_idx+1 < line.length()) {
-                            char nextCh = Character.toUpperCase(line.charAt(lookahead_idx+1));
-                            if (nextCh == 'N') {
-                                lookahead_idx++;
-                                kw = ApplesoftKeyword.ATN;
-                            }
-                            else if (nextCh == 'O') {
-                                emitIdent('A');
-                                lookahead_idx++;
-                                kw = ApplesoftKeyword.TO;
-                            }
-                        }
-                        emitKeyword(kw);
-                        return lookahead_idx - base + 1;
-                    }
+            Optional<KeywordTrie.Match> match = KeywordTrie.applesoft().match(line, base);
+            if (match.isEmpty()) {
+                return -1;
+            }
+            ApplesoftKeyword kw = match.get().keyword();
+            int lookahead_idx = base + match.get().length() - 1;
+            // Figure out AT/ATN/A TO
+            if (kw == ApplesoftKeyword.AT && lookahead_idx+1 < line.length()) {
+                char nextCh = Character.toUpperCase(line.charAt(lookahead_idx+1));
+                if (nextCh == 'N') {
+                    lookahead_idx++;
+                    kw = ApplesoftKeyword.ATN;
+                }
+                else if (nextCh == 'O') {
+                    emitIdent('A');
                     lookahead_idx++;
-                    token_idx++;
+                    kw = ApplesoftKeyword.TO;
                 }
             }
-            return -1;
+            emitKeyword(kw);
+            return lookahead_idx - base + 1;
         }
 
         /** Look ahead for the directive. Note that spaces are important. */
         public int handleDirective(final int base, final String line) {
-            for (String directive : Directives.names()) {
-                int lookahead_idx = base;
-                int directive_idx = 0;
-                while (lookahead_idx < line.length() && directive_idx < directive.length()) {
-                    char ch = line.charAt(lookahead_idx);
-                    if (Character.toUpperCase(ch) != Character.toUpperCase(directive.charAt(directive_idx))) {
-                        break;
-                    }
-                    if (directive_idx == directive.length() - 1) {
-                        emitDirective(line.substring(base, lookahead_idx+1));
-                        return lookahead_idx - base + 1;
-                    }
-                    lookahead_idx++;
-                    directive_idx++;
-                }
+            Optional<String> directive = Directives.match(line, base);
+            directive.ifPresent(this::emitDirective);
+            return directive.map(String::length).orElse(-1);
+        }
+
+        /** Turn the current run (if any) into a Token. */
+        public void flush() {
+            if (runType == null) {
+                return;
             }
-            return -1;
+            String text = run.toString();
+            Token token = switch (runType) {
+                case IDENT -> Token.ident(runLineNo, text);
+                case NUMBER -> Token.number(runLineNo, ".".equals(text) ? 0.0 : Double.parseDouble(text), text);
+                case COMMENT -> Token.comment(runLineNo, text);
+                case DATA -> Token.data(runLineNo, text);
+                case STRING -> Token.string(runLineNo, text);
+                default -> throw new IllegalStateException("Unexpected token run of type " + runType);
+            };
+            tokens.add(token);
+            run.setLength(0);
+            runType = null;
+        }
+        /** Begin a new run even if the prior run is of the same type. */
+        private void startRun(final Token.Type ttype) {
+            flush();
+            runType = ttype;
+            runLineNo = lineNo;
+        }
+        private void add(final Token token) {
+            flush();
+            tokens.add(token);
         }
 
         private void emitSyntax(char ch) {
-            tokens.add(Token.syntax(lineNo, ch));
+            add(Token.syntax(lineNo, ch));
         }
         private void emitString(char ch) {
-            String str = extendString(ch, Token.Type.STRING);
-            tokens.add(Token.string(lineNo, str));
+            extendRun(ch, Token.Type.STRING);
         }
         private void emitData(char ch) {
-            String data = extendString(ch, Token.Type.DATA);
-            tokens.add(Token.data(lineNo, data));
+            extendRun(ch, Token.Type.DATA);
         }
         private void emitComment(char ch) {
             // Special: COMMENT essentially includes the REM (from "modern" parser) so we need to remove it
-            if (!tokens.isEmpty() && tokens.getLast().type() == Token.Type.KEYWORD
+            if (runType == null && !tokens.isEmpty() && tokens.getLast().type() == Token.Type.KEYWORD
                     && tokens.getLast().keyword() == ApplesoftKeyword.REM) {
                 tokens.removeLast();
+                // With a line continuation, a prior comment may now be last; it continues with this one
+                if (!tokens.isEmpty() && tokens.getLast().type() == Token.Type.COMMENT) {
+                    startRun(Token.Type.COMMENT);
+                    run.append(tokens.removeLast().text());
+                }
             }
-            String comment = extendString(ch, Token.Type.COMMENT);
-            tokens.add(Token.comment(lineNo, comment));
+            extendRun(ch, Token.Type.COMMENT);
         }
         private void emitKeyword(ApplesoftKeyword kw) {
-            tokens.add(Token.keyword(lineNo, kw));
+            add(Token.keyword(lineNo, kw));
         }
         private void emitDirective(String directive) {
-            tokens.add(Token.directive(lineNo, directive));
+            add(Token.directive(lineNo, directive));
         }
         private void emitNumber(char ch) {
-            String num = extendString(ch, Token.Type.NUMBER);
-            double value = 0.0;
-            if (!".".equals(num)) {
-                value = Double.parseDouble(num);
-            }
-            tokens.add(Token.number(lineNo, value, num));
+            extendRun(ch, Token.Type.NUMBER);
         }
         private void emitIdent(char ch) {
-            String name = extendString(ch, Token.Type.IDENT);
-            tokens.add(Token.ident(lineNo, name));
+            extendRun(ch, Token.Type.IDENT);
         }
-        private String extendString(final char ch, final Token.Type ttype) {
-            String str = Character.toString(ch);
-            if (isLastToken(ttype)) {
-                str = tokens.getLast().text() + ch;
-                tokens.removeLast();
+        private void extendRun(final char ch, final Token.Type ttype) {
+            if (runType != ttype) {
+                startRun(ttype);
             }
-            return str;
+            run.append(ch);
+            runLineNo = lineNo;
         }
         private boolean isLastToken(final Token.Type ttype) {
+            if (runType != null) {
+                return runType == ttype;
+            }
             return !tokens.isEmpty() && tokens.getLast().type() == ttype;
         }
     }
@@ -18,6 +18,7 @@
 package org.applecommander.bastools.api;
 
 import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.utils.AssetCache;
 
 import java.io.File;
 import java.io.OutputStream;
@@ -33,6 +34,7 @@ public class Configuration {
 	public final PrintStream debugStream;
 	public final Map<String,String> variableReplacements = new HashMap<>();
     public final boolean preserveNumbers;
+    public final AssetCache assetCache;
 	
 	private Configuration(Builder b) {
 		this.sourceFile = b.sourceFile;
@@ -40,6 +42,7 @@ public class Configuration {
 		this.maxLineLength = b.maxLineLength;
 		this.debugStream = b.debugStream;
         this.preserveNumbers = b.preserveNumbers;
+        this.assetCache = b.assetCache;
 	}
 
     public String numberToString(Token token) {
@@ -71,6 +74,7 @@ public class Configuration {
 				}
 			});
         private boolean preserveNumbers;
+        private AssetCache assetCache = AssetCache.none();
 
 		public Builder sourceFile(File sourceFile) {
 			this.sourceFile = sourceFile;
@@ -92,10 +96,19 @@ public class Configuration {
             this.preserveNumbers = preserveNumbers;
             return this;
         }
+        /**
+         * Cache for files read by directives. Defaults to no caching, so every compile sees the
+         * files as they are; processes that compile repeatedly opt in to {@link AssetCache#shared()}.
+         */
+        public Builder assetCache(AssetCache assetCache) {
+            this.assetCache = assetCache;
+            return this;
+        }
 		
 		public Configuration build() {
 			Objects.requireNonNull(sourceFile, "Please configure a sourceFile");
 			Objects.requireNonNull(debugStream, "debugStream cannot be null");
+			Objects.requireNonNull(assetCache, "assetCache cannot be null");
 			return new Configuration(this);
 		}
 	}
@@ -0,0 +1,275 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Statement;
+import org.applecommander.bastools.api.model.Token;
+
+/**
+ * Reads a tokenized Applesoft program (as generated by the {@code ByteVisitor}) back into the
+ * {@link Program} model by walking the link pointer chain. Lines are decoded one at a time straight
+ * from the buffer, so a memory-mapped file can be streamed without reading it into memory.
+ * <p/>
+ * Lines returned by {@link #next()} refer to {@link #getProgram()} but are not added to it;
+ * use {@link #readAll()} to collect the whole program. Tokens are numbered by Applesoft line
+ * number and numbers retain their original text (see {@code Configuration.preserveNumbers}).
+ * Embedded directive content (such as {@code $embed}) cannot be recovered.
+ * <p/>
+ * Spaces outside of strings, {@code REM} and {@code DATA} are dropped as the model has no place
+ * for them. Applesoft and the {@code ByteVisitor} never store such spaces, but a program whose
+ * bytes were edited by other means does not tokenize back to exactly the same bytes.
+ */
+public class Detokenizer implements Iterator<Line> {
+    private static final ApplesoftKeyword[] KEYWORDS = new ApplesoftKeyword[128];
+    static {
+        for (ApplesoftKeyword keyword : ApplesoftKeyword.values()) {
+            // First one wins, so PRINT is preferred over '?'
+            if (KEYWORDS[keyword.code - 0x80] == null) {
+                KEYWORDS[keyword.code - 0x80] = keyword;
+            }
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final Program program = new Program();
+    private final StringBuilder text = new StringBuilder();
+    /** Address of buffer offset 0; negative until discovered from the first link. */
+    private int startAddress;
+    private int offset;
+    private boolean done;
+
+    /** A handy method to read an entire tokenized program from a file. */
+    public static Program read(File file) throws IOException {
+        return open(file).readAll();
+    }
+    /** Memory-map a tokenized program for streaming. The start address is discovered from the first link. */
+    public static Detokenizer open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // A mapping remains valid after the channel is closed
+            return new Detokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Read from the buffer's position to its limit. The start address is discovered from the first link. */
+    public Detokenizer(ByteBuffer buffer) {
+        this(buffer, -1);
+    }
+    /** Read from the buffer's position to its limit, which is loaded at the given start address. */
+    public Detokenizer(ByteBuffer buffer, int startAddress) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.startAddress = startAddress;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+    /** The load address of the program; only known once the first line has been read unless supplied. */
+    public int getStartAddress() {
+        return startAddress;
+    }
+
+    /** Read all remaining lines into the program. */
+    public Program readAll() {
+        while (hasNext()) {
+            program.lines.add(next());
+        }
+        return program;
+    }
+
+    /** Stream the remaining lines; note that these are not added to the program. */
+    public Stream<Line> lines() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!done && (offset + 2 > buffer.limit() || buffer.getShort(offset) == 0)) {
+            done = true;
+        }
+        return !done;
+    }
+
+    @Override
+    public Line next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int link = Short.toUnsignedInt(buffer.getShort(offset));
+        if (offset + 4 > buffer.limit()) {
+            throw new RuntimeException(String.format("Truncated line at offset %d", offset));
+        }
+        int lineNumber = Short.toUnsignedInt(buffer.getShort(offset+2));
+        int end = offset + 4;
+        while (end < buffer.limit() && buffer.get(end) != 0) {
+            end++;
+        }
+        if (end >= buffer.limit()) {
+            throw new RuntimeException(String.format("Line %d is not terminated", lineNumber));
+        }
+        if (startAddress < 0) {
+            startAddress = link - (end + 1);
+        }
+        Line line = decode(lineNumber, offset + 4, end);
+        int next = link - startAddress;
+        if (next <= end || next > buffer.limit()) {
+            throw new RuntimeException(String.format("Line %d links to $%04x which is outside of the program",
+                    lineNumber, link));
+        }
+        offset = next;
+        return line;
+    }
+
+    /** Decode the tokens between start (inclusive) and end (exclusive) into statements. */
+    Line decode(int lineNumber, int start, int end) {
+        Line line = new Line(lineNumber, program);
+        Statement statement = new Statement();
+        int i = start;
+        while (i < end) {
+            int b = Byte.toUnsignedInt(buffer.get(i));
+            if (b >= 0x80) {
+                ApplesoftKeyword keyword = keyword(b);
+                i++;
+                if (keyword == ApplesoftKeyword.REM) {
+                    // A comment token implies the REM
+                    i = readText(i, end, false);
+                    statement.tokens.add(Token.comment(lineNumber, text.toString()));
+                } else if (keyword == ApplesoftKeyword.DATA) {
+                    statement.tokens.add(Token.keyword(lineNumber, keyword));
+                    i = readText(i, end, true);
+                    statement.tokens.add(Token.data(lineNumber, text.toString()));
+                } else {
+                    statement.tokens.add(Token.keyword(lineNumber, keyword));
+                }
+            } else if (b == ':') {
+                line.statements.add(statement);
+                statement = new Statement();
+                i++;
+            } else if (b == '"') {
+                text.setLength(0);
+                i++;
+                while (i < end && buffer.get(i) != '"') {
+                    appendChar(buffer.get(i++));
+                }
+                i = Math.min(i+1, end);
+                statement.tokens.add(Token.string(lineNumber, text.toString()));
+            } else if (isDigit(b) || b == '.') {
+                i = readNumber(i, end);
+                String number = text.toString();
+                // Applesoft reads a lone '.' as zero
+                double value = ".".equals(number) ? 0.0 : Double.parseDouble(number);
+                statement.tokens.add(Token.number(lineNumber, value, number));
+            } else if (Character.isLetter(b)) {
+                text.setLength(0);
+                while (i < end && Character.isLetterOrDigit(buffer.get(i))) {
+                    text.append((char) buffer.get(i++));
+                }
+                if (i < end && (buffer.get(i) == '$' || buffer.get(i) == '%')) {
+                    text.append((char) buffer.get(i++));
+                }
+                // Not Token.ident(...) as that upper-cases the name and we want to write it back as-is
+                statement.tokens.add(new Token(lineNumber, Token.Type.IDENT, null, null, text.toString()));
+            } else if (b == ' ') {
+                i++;
+            } else {
+                statement.tokens.add(Token.syntax(lineNumber, b));
+                i++;
+            }
+        }
+        if (!statement.tokens.isEmpty() || !line.statements.isEmpty()) {
+            line.statements.add(statement);
+        }
+        return line;
+    }
+
+    /** Read raw text for REM (to end of line) or DATA (to an unquoted colon). */
+    int readText(int i, int end, boolean data) {
+        text.setLength(0);
+        boolean quoted = false;
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (data && !quoted && b == ':') break;
+            if (b == '"') quoted = !quoted;
+            appendChar(b);
+            i++;
+        }
+        return i;
+    }
+
+    /** Read digits with an optional fraction and exponent; Applesoft may have tokenized the exponent sign. */
+    int readNumber(int i, int end) {
+        text.setLength(0);
+        while (i < end && (isDigit(buffer.get(i)) || buffer.get(i) == '.')) {
+            text.append((char) buffer.get(i++));
+        }
+        if (i+1 < end && buffer.get(i) == 'E') {
+            int sign = Byte.toUnsignedInt(buffer.get(i+1));
+            int digits = (sign == '+' || sign == '-' || sign == ApplesoftKeyword.add.code
+                    || sign == ApplesoftKeyword.sub.code) ? i+2 : i+1;
+            if (digits < end && isDigit(buffer.get(digits))) {
+                text.append('E');
+                if (digits == i+2) {
+                    text.append(sign == '-' || sign == ApplesoftKeyword.sub.code ? '-' : '+');
+                }
+                i = digits;
+                while (i < end && isDigit(buffer.get(i))) {
+                    text.append((char) buffer.get(i++));
+                }
+            }
+        }
+        return i;
+    }
+
+    /** Raw text may contain high-bit bytes; like LIST, known tokens are shown as the keyword. */
+    void appendChar(byte b) {
+        int code = Byte.toUnsignedInt(b);
+        if (code >= 0x80 && KEYWORDS[code - 0x80] != null) {
+            text.append(KEYWORDS[code - 0x80].text);
+        } else {
+            text.append((char) (code & 0x7f));
+        }
+    }
+
+    ApplesoftKeyword keyword(int code) {
+        ApplesoftKeyword keyword = KEYWORDS[code - 0x80];
+        if (keyword == null) {
+            throw new RuntimeException(String.format("Unknown token $%02x", code));
+        }
+        return keyword;
+    }
+
+    static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -21,12 +21,14 @@ import java.io.OutputStream;
 import java.io.Serial;
 import java.lang.reflect.Constructor;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 
 import org.applecommander.bastools.api.directives.EmbeddedBinaryDirective;
 import org.applecommander.bastools.api.directives.EmbeddedShapeTable;
 import org.applecommander.bastools.api.directives.HexDirective;
+import org.applecommander.bastools.api.utils.CaseInsensitiveIndex;
 
 public class Directives {
 	private Directives() { /* Prevent construction. */ }
@@ -43,6 +45,12 @@ public class Directives {
             }
         };
 
+	/** Case-insensitive index of directive names, used while scanning source text. */
+	private static final CaseInsensitiveIndex<String> NAMES = new CaseInsensitiveIndex<>();
+	static {
+		DIRECTIVES.keySet().forEach(name -> NAMES.add(name, name));
+	}
+
 	public static Directive find(String text, Configuration config, OutputStream outputStream) {
 		if (DIRECTIVES.containsKey(text)) {
 			try {
@@ -59,4 +67,22 @@ public class Directives {
     public static Set<String> names() {
         return DIRECTIVES.keySet();
     }
+
+    /**
+     * Locate a directive name at the given position of the source text, ignoring case.
+     * Note that spaces are significant.
+     * @return the directive name as it appears in the source text
+     */
+    public static Optional<String> match(String line, int base) {
+        for (int length : NAMES.lengths()) {
+            if (base + length > line.length()) {
+                break;
+            }
+            String text = line.substring(base, base + length);
+            if (NAMES.find(text).isPresent()) {
+                return Optional.of(text);
+            }
+        }
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,349 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.utils.ByteSink;
+
+/**
+ * Compiles a program incrementally. The source is split into chunks, one per Applesoft line along
+ * with any continuation or comment-only lines that follow it, and each chunk keeps its content hash,
+ * tokens and emitted bytes. A rebuild reuses unchanged chunks and only recomputes their link
+ * pointers and line addresses. Chunks with directives are always recompiled since their bytes may
+ * depend upon their address, the number of the line that follows them or upon other files.
+ * <p/>
+ * Optimizations work on the whole program and are not applied. Token line numbers are relative
+ * to the start of each chunk.
+ */
+public class IncrementalCompiler {
+    private static final int MAGIC = 0x42544943;   // "BTIC"
+    private static final int VERSION = 1;
+
+    private final Configuration config;
+    private final boolean classic;
+    private final MessageDigest digest;
+    private Map<String,Chunk> cache = new HashMap<>();
+
+    /**
+     * Create an incremental compiler.
+     * @param config supplies the start address and number handling
+     * @param classic selects the {@link ClassicTokenReader} instead of the {@link ModernTokenReader}
+     */
+    public IncrementalCompiler(Configuration config, boolean classic) {
+        this.config = config;
+        this.classic = classic;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /** Compile the configured source file. */
+    public Result compile() throws IOException {
+        return compile(Files.readString(config.sourceFile.toPath(), Charset.defaultCharset()));
+    }
+
+    /** Compile the given source text, reusing whatever was compiled by the prior build. */
+    public Result compile(String source) throws IOException {
+        Map<String,Chunk> next = new HashMap<>();
+        ByteSink sink = new ByteSink();
+        Map<Integer,Integer> lineAddresses = new TreeMap<>();
+        List<List<Token>> tokens = new ArrayList<>();
+        int address = config.startAddress;
+        int reused = 0;
+        int sourceLine = 1;
+        List<String> texts = split(source);
+        for (int n=0; n<texts.size(); n++) {
+            String text = texts.get(n);
+            String key = hash(text);
+            Chunk chunk = next.containsKey(key) ? next.get(key) : cache.get(key);
+            if (chunk == null || chunk.hasDirective()) {
+                int nextLineNumber = n+1 < texts.size() ? firstLineNumber(texts.get(n+1)) : -1;
+                chunk = compileChunk(text, address, nextLineNumber, sourceLine);
+            } else {
+                reused++;
+            }
+            next.put(key, chunk);
+            tokens.add(chunk.tokens());
+
+            int base = sink.size();
+            int delta = address - chunk.address();
+            sink.write(chunk.image());
+            for (int i=0; i<chunk.lineNumbers().length; i++) {
+                int offset = chunk.lineOffsets()[i];
+                sink.patchShort(base + offset, readShort(chunk.image(), offset) + delta);
+                lineAddresses.put(chunk.lineNumbers()[i], address + offset);
+            }
+            address += chunk.image().length;
+            for (int i=text.indexOf('\n'); i >= 0; i=text.indexOf('\n', i+1)) {
+                sourceLine++;
+            }
+        }
+        sink.writeShort(0x0000);
+        int compiled = tokens.size() - reused;
+        this.cache = next;
+        return new Result(sink.toByteArray(), lineAddresses, reused, compiled, tokens);
+    }
+
+    /** Split source text into chunks that each start with a line number (except possibly the first). */
+    static List<String> split(String source) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        boolean continued = false;
+        while (i < source.length()) {
+            int eol = source.indexOf('\n', i);
+            int next = eol < 0 ? source.length() : eol + 1;
+            if (i > start && !continued && startsWithDigit(source, i, next)) {
+                chunks.add(source.substring(start, i));
+                start = i;
+            }
+            String line = source.substring(i, next).stripTrailing();
+            continued = line.endsWith("\\");
+            i = next;
+        }
+        if (start < source.length()) {
+            chunks.add(source.substring(start));
+        }
+        return chunks;
+    }
+
+    /** The line number a chunk starts with, or -1 when it does not start with one. */
+    static int firstLineNumber(String text) {
+        int lineNumber = -1;
+        for (int i=0; i<text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isDigit(ch)) {
+                lineNumber = Math.max(lineNumber, 0) * 10 + (ch - '0');
+            } else if (ch == '\n' || !Character.isWhitespace(ch)) {
+                break;
+            }
+        }
+        return lineNumber;
+    }
+
+    static boolean startsWithDigit(String source, int start, int end) {
+        for (int i=start; i<end; i++) {
+            char ch = source.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                return Character.isDigit(ch);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compile one chunk at the given address. Directives may refer to the line that follows them
+     * ({@code GOTO} after a {@code moveto}, for instance), so a chunk with directives is compiled
+     * with an empty placeholder line carrying the next line number, which is dropped afterwards.
+     */
+    Chunk compileChunk(String text, int address, int nextLineNumber, int sourceLine) throws IOException {
+        try {
+            Queue<Token> queue = classic ? ClassicTokenReader.tokenize(new StringReader(text))
+                                         : ModernTokenReader.tokenize(new StringReader(text));
+            List<Token> tokens = List.copyOf(queue);
+            Program program = new Parser(queue).parse();
+            boolean hasDirective = tokens.stream().anyMatch(t -> t.type() == Token.Type.DIRECTIVE);
+            int lineCount = program.lines.size();
+            if (hasDirective && nextLineNumber >= 0) {
+                program.lines.add(new Line(nextLineNumber, program));
+            }
+
+            // Only directives depend upon the address; everything else is relocated as needed
+            if (hasDirective && address != config.startAddress) {
+                Configuration chunkConfig = Configuration.builder()
+                        .sourceFile(config.sourceFile)
+                        .startAddress(address)
+                        .maxLineLength(config.maxLineLength)
+                        .preserveNumbers(config.preserveNumbers)
+                        .debugStream(config.debugStream)
+                        .assetCache(config.assetCache)
+                        .build();
+                return compileChunk(tokens, program, lineCount, chunkConfig, hasDirective);
+            }
+            return compileChunk(tokens, program, lineCount, config, hasDirective);
+        } catch (IOException | RuntimeException ex) {
+            throw new IOException(String.format("%s (in the line starting at source line #%d)",
+                    ex.getMessage(), sourceLine), ex);
+        }
+    }
+
+    Chunk compileChunk(List<Token> tokens, Program program, int lineCount, Configuration chunkConfig,
+                       boolean hasDirective) {
+        int address = chunkConfig.startAddress;
+        byte[] bytes = Visitors.byteVisitor(chunkConfig).dump(program);
+        int[] lineOffsets = new int[lineCount];
+        int[] lineNumbers = new int[lineCount];
+        int offset = 0;
+        for (int i=0; i<lineCount; i++) {
+            lineOffsets[i] = offset;
+            lineNumbers[i] = readShort(bytes, offset + 2);
+            // Links are only 16 bits, so large programs wrap around
+            offset = (readShort(bytes, offset) - address) & 0xffff;
+        }
+        // Drop any placeholder line and the end of program marker
+        byte[] image = Arrays.copyOf(bytes, lineCount == program.lines.size() ? bytes.length - 2 : offset);
+        return new Chunk(tokens, image, address, lineOffsets, lineNumbers, hasDirective);
+    }
+
+    /** Save the chunks of the last build so a later run can start warm. */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint());
+            out.writeInt(cache.size());
+            for (Map.Entry<String,Chunk> entry : cache.entrySet()) {
+                Chunk chunk = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(chunk.address());
+                out.writeBoolean(chunk.hasDirective());
+                out.writeInt(chunk.image().length);
+                out.write(chunk.image());
+                out.writeInt(chunk.lineNumbers().length);
+                for (int i=0; i<chunk.lineNumbers().length; i++) {
+                    out.writeInt(chunk.lineOffsets()[i]);
+                    out.writeInt(chunk.lineNumbers()[i]);
+                }
+                out.writeInt(chunk.tokens().size());
+                for (Token token : chunk.tokens()) {
+                    writeToken(out, token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load chunks saved by {@link #save(File)}. Answers false (leaving the compiler cold) when the
+     * file does not exist or was written with a different version or settings.
+     */
+    public boolean load(File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint().equals(in.readUTF())) {
+                return false;
+            }
+            Map<String,Chunk> chunks = new HashMap<>();
+            int count = in.readInt();
+            for (int n=0; n<count; n++) {
+                String key = in.readUTF();
+                int address = in.readInt();
+                boolean hasDirective = in.readBoolean();
+                byte[] image = in.readNBytes(in.readInt());
+                int lineCount = in.readInt();
+                int[] lineOffsets = new int[lineCount];
+                int[] lineNumbers = new int[lineCount];
+                for (int i=0; i<lineCount; i++) {
+                    lineOffsets[i] = in.readInt();
+                    lineNumbers[i] = in.readInt();
+                }
+                int tokenCount = in.readInt();
+                List<Token> tokens = new ArrayList<>(tokenCount);
+                for (int i=0; i<tokenCount; i++) {
+                    tokens.add(readToken(in));
+                }
+                chunks.put(key, new Chunk(tokens, image, address, lineOffsets, lineNumbers, hasDirective));
+            }
+            this.cache = chunks;
+            return true;
+        }
+    }
+
+    /** Settings that change the generated bytes; a persisted cache is only valid for the same settings. */
+    String fingerprint() {
+        return String.format("%s,preserveNumbers=%s", classic ? "classic" : "modern", config.preserveNumbers);
+    }
+
+    static void writeToken(DataOutputStream out, Token token) throws IOException {
+        out.writeByte(token.type().ordinal());
+        out.writeInt(token.line());
+        out.writeByte(token.keyword() == null ? -1 : token.keyword().ordinal());
+        out.writeBoolean(token.number() != null);
+        if (token.number() != null) {
+            out.writeDouble(token.number());
+        }
+        out.writeBoolean(token.text() != null);
+        if (token.text() != null) {
+            out.writeUTF(token.text());
+        }
+    }
+
+    static Token readToken(DataInputStream in) throws IOException {
+        Token.Type type = Token.Type.values()[in.readByte()];
+        int line = in.readInt();
+        int keyword = in.readByte();
+        Double number = in.readBoolean() ? in.readDouble() : null;
+        String text = in.readBoolean() ? in.readUTF() : null;
+        return new Token(line, type, keyword < 0 ? null : ApplesoftKeyword.values()[keyword], number, text);
+    }
+
+    String hash(String text) {
+        return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static int readShort(byte[] data, int offset) {
+        return Byte.toUnsignedInt(data[offset]) | Byte.toUnsignedInt(data[offset+1]) << 8;
+    }
+
+    /** The compiled form of a chunk, as emitted at the given address. */
+    record Chunk(List<Token> tokens, byte[] image, int address, int[] lineOffsets, int[] lineNumbers,
+                 boolean hasDirective) {}
+
+    /**
+     * The result of a build: the tokenized program, the address of each line (as with
+     * {@code ByteVisitor.getLineAddresses()}), how many chunks were reused or compiled and
+     * the tokens of each chunk.
+     */
+    public record Result(byte[] bytes, Map<Integer,Integer> lineAddresses, int reused, int compiled,
+                         List<List<Token>> tokens) {
+        /** Parse the tokens into a Program. */
+        public Program program() {
+            Queue<Token> all = new LinkedList<>();
+            tokens.forEach(all::addAll);
+            return new Parser(all).parse();
+        }
+    }
+}
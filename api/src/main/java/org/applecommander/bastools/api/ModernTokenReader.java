@@ -67,7 +67,8 @@ public class ModernTokenReader {
 			return tokenize(streamReader);
 		}
 	}
-	private static Queue<Token> tokenize(Reader reader) throws IOException {
+	/** A handy method to generate a list of Tokens from a Reader. Note that the Reader is not closed. */
+	public static Queue<Token> tokenize(Reader reader) throws IOException {
 		ModernTokenReader tokenReader = new ModernTokenReader(reader);
 		LinkedList<Token> tokens = new LinkedList<>();
 		while (tokenReader.hasMore()) {
@@ -174,7 +175,7 @@ public class ModernTokenReader {
 				case '/':
 				case '^':
 					return Optional.of(
-							ApplesoftKeyword.find(String.format("%c", tokenizer.ttype))
+							ApplesoftKeyword.find((char)tokenizer.ttype)
 							   .map(kw -> Token.keyword(line, kw))
 							   .orElse(Token.syntax(line, tokenizer.ttype)));
 				case '\\':
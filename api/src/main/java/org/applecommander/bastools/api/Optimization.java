@@ -17,8 +17,11 @@
  */
 package org.applecommander.bastools.api;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
+import org.applecommander.bastools.api.model.Program;
 import org.applecommander.bastools.api.optimizations.*;
 
 /**
@@ -26,17 +29,19 @@ import org.applecommander.bastools.api.optimizations.*;
  * Essentially, the goal is to prioritize the optimizations to manage dependencies.
  */
 public enum Optimization {
-	REMOVE_EMPTY_STATEMENTS(RemoveEmptyStatements::new),
-	REMOVE_REM_STATEMENTS(RemoveRemStatements::new),
-	SHORTEN_VARIABLE_NAMES(ShortenVariableNames::new),
-	EXTRACT_CONSTANT_VALUES(ExtractConstantValues::new),
-	MERGE_LINES(MergeLines::new),
-	RENUMBER(Renumber::new),
-	SHORTEN_NUMBERS(ShortenNumbers::new);
+	REMOVE_EMPTY_STATEMENTS(true, RemoveEmptyStatements::new),
+	REMOVE_REM_STATEMENTS(true, RemoveRemStatements::new),
+	SHORTEN_VARIABLE_NAMES(true, ShortenVariableNames::new),
+	EXTRACT_CONSTANT_VALUES(false, ExtractConstantValues::new),
+	MERGE_LINES(false, MergeLines::new),
+	RENUMBER(false, Renumber::new),
+	SHORTEN_NUMBERS(true, ShortenNumbers::new);
 	
+	private final boolean fusible;
 	private final Function<Configuration,Visitor> factory;
 	
-	Optimization(Function<Configuration, Visitor> factory) {
+	Optimization(boolean fusible, Function<Configuration, Visitor> factory) {
+		this.fusible = fusible;
 		this.factory = factory;
 	}
 	
@@ -44,4 +49,44 @@ public enum Optimization {
 		return factory.apply(config);
 	}
 	
+	/** Indicates this optimization only rewrites statements and tokens, so it can share a tree walk. */
+	public boolean isFusible() {
+		return fusible;
+	}
+	
+	/**
+	 * Create a Visitor that applies the given optimizations in order. Neighboring fusible
+	 * optimizations share one tree walk; the result is the same as applying each in turn.
+	 */
+	public static Visitor pipeline(Configuration config, List<Optimization> optimizations) {
+		return new Visitor() {
+			@Override
+			public Program visit(Program program) {
+				List<Optimization> group = new ArrayList<>();
+				for (Optimization optimization : optimizations) {
+					if (optimization.fusible) {
+						// A repeat needs to see what the previous run did (variable names, for instance)
+						if (group.contains(optimization)) {
+							program = fuse(program, group);
+						}
+						group.add(optimization);
+						continue;
+					}
+					program = fuse(program, group);
+					program = program.accept(optimization.create(config));
+				}
+				return fuse(program, group);
+			}
+			private Program fuse(Program program, List<Optimization> group) {
+				if (group.isEmpty()) {
+					return program;
+				}
+				Visitor visitor = group.size() == 1 
+						? group.getFirst().create(config)
+						: new FusedOptimization(group.stream().map(o -> (BaseVisitor)o.create(config)).toList());
+				group.clear();
+				return program.accept(visitor);
+			}
+		};
+	}
 }
@@ -17,6 +17,8 @@
  */
 package org.applecommander.bastools.api;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
@@ -29,16 +31,33 @@ import org.applecommander.bastools.api.model.Token.Type;
  * Note that this is not a compiler and does not "understand" the program. 
  */
 public class Parser {
-	private final Queue<Token> tokens;
+	private final Iterator<Token> tokens;
+	/** One token of lookahead; null when the next token has not yet been pulled. */
+	private Token peeked;
 	
+	/** Parse from a Queue. Note that the tokens are removed from the Queue as they are consumed. */
 	public Parser(Queue<Token> tokens) {
+		Objects.requireNonNull(tokens);
+		this.tokens = new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return !tokens.isEmpty();
+			}
+			@Override
+			public Token next() {
+				return tokens.remove();
+			}
+		};
+	}
+	/** Parse from a pull-based token source, such as {@code ClassicTokenReader}. */
+	public Parser(Iterator<Token> tokens) {
 		Objects.requireNonNull(tokens);
 		this.tokens = tokens;
 	}
 	
 	public Program parse() {
 		Program program = new Program();
-		while (!tokens.isEmpty()) {
+		while (!isEmpty()) {
 		    readLine(program).ifPresent(program.lines::add);
 		}
 		return program;
@@ -47,7 +66,7 @@ public class Parser {
 	public Optional<Line> readLine(Program program) {
 	    return expectNumber().map(lineNumber -> {
             Line line = new Line(lineNumber, program);
-            while (!tokens.isEmpty() && tokens.peek().type() != Type.EOL) {
+            while (!isEmpty() && peek().type() != Type.EOL) {
                 Statement statement = readStatement();
                 if (statement != null) {
                     line.statements.add(statement);
@@ -55,8 +74,8 @@ public class Parser {
                     break;
                 }
             }
-            if (!tokens.isEmpty() && tokens.peek().type() == Type.EOL) {
-                tokens.remove();    // Skip that EOL
+            if (!isEmpty() && peek().type() == Type.EOL) {
+                remove();    // Skip that EOL
             }
             return line;
 	    });
@@ -65,9 +84,9 @@ public class Parser {
 	public Statement readStatement() {
 		Statement statement = new Statement();
         Token firstToken = null;
-		while (!tokens.isEmpty()) {
-			if (tokens.peek().type() == Type.EOL) break;
-			Token t = tokens.remove();
+		while (!isEmpty()) {
+			if (peek().type() == Type.EOL) break;
+			Token t = remove();
 			if (t.type() == Type.SYNTAX && ":".equals(t.text())) break;
             if (firstToken == null) {
                 firstToken = t;
@@ -82,7 +101,7 @@ public class Parser {
 	}
 	
 	public Optional<Integer> expectNumber() {
-		Token c = tokens.remove();
+		Token c = remove();
 		if (c.type() == Type.EOL) {
 		    return Optional.empty();
 		}
@@ -91,4 +110,22 @@ public class Parser {
 		}
 		return Optional.of(c.number().intValue());
 	}
+
+	private boolean isEmpty() {
+		return peeked == null && !tokens.hasNext();
+	}
+	private Token peek() {
+		if (peeked == null && tokens.hasNext()) {
+			peeked = tokens.next();
+		}
+		return peeked;
+	}
+	private Token remove() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		Token t = peek();
+		peeked = null;
+		return t;
+	}
 }
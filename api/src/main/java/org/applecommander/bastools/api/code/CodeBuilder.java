@@ -19,6 +19,7 @@ package org.applecommander.bastools.api.code;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * {@code CodeBuilder} allows dynamic generation of combined BASIC and Assembly code with dynamic 
@@ -26,20 +27,63 @@ import java.io.IOException;
  * manner.
  */
 public class CodeBuilder {
+    /** 
+     * Default limit of passes before giving up on marks that do not settle.  This is well above twice
+     * {@code CodeMark}'s limit per address, so a mark flipping between two addresses around a page boundary
+     * is reported by {@code CodeMark}, along with its explanation and workaround.
+     */
+    public static final int DEFAULT_MAX_PASSES = 3 * CodeMark.LOOP_MAX;
     private CodeGenerator generatorChain = (os) -> {};
+    private int maxPasses = DEFAULT_MAX_PASSES;
+    private int passCount;
     
     /** 
-     * Generate this set of code beginning at the starting address.
+     * Generate this set of code beginning at the starting address.  Sizing passes run until no
+     * {@code CodeMark} moves, then a single pass emits the bytes.
      * @return ByteArrayOutputStream which allows {@code ByteArrayOutputStream#writeTo(java.io.OutputStream)} 
      *         and {@code ByteArrayOutputStream#toByteArray()} 
      */
     public ByteArrayOutputStream generate(int startAddress) throws IOException {
         GeneratorState state = new GeneratorState(startAddress);
+        generate(state);
+        return state.outputStream();
+    }
+    /**
+     * Generate this set of code beginning at the starting address, emitting directly into the given
+     * stream.  Binaries are passed by reference when the stream is a {@code ByteSink}.
+     */
+    public void generate(int startAddress, OutputStream outputStream) throws IOException {
+        generate(new GeneratorState(startAddress, outputStream));
+    }
+    private void generate(GeneratorState state) throws IOException {
         do {
-            state.reset();
+            if (state.getPassCount() >= maxPasses) {
+                throw new IllegalStateException(String.format(
+                        "Code generation did not settle after %d passes; a CodeMark moved from %s on the last pass",
+                        state.getPassCount(), state.describeLastMove()));
+            }
+            state.reset(false);
             generatorChain.generate(state);
         } while (state.hasMarkMoved());
-        return state.outputStream();
+        state.reset(true);
+        generatorChain.generate(state);
+        if (state.hasMarkMoved()) {
+            throw new IllegalStateException("A CodeMark moved while emitting code from " + state.describeLastMove());
+        }
+        this.passCount = state.getPassCount();
+    }
+
+    /** Limit the number of sizing passes in {@link #generate(int)}. */
+    public CodeBuilder maxPasses(int maxPasses) {
+        if (maxPasses < 1) {
+            throw new IllegalArgumentException("At least one pass is required: " + maxPasses);
+        }
+        this.maxPasses = maxPasses;
+        return this;
+    }
+    /** Number of passes (sizing and emitting) used by the most recent {@link #generate(int)}. */
+    public int getPassCount() {
+        return passCount;
     }
 
     /** Start generating BASIC code. */
@@ -63,8 +107,8 @@ public class CodeBuilder {
                 state.update(mark);
             });
     }
-    /** Add a {@code byte[]} to this stream. */
+    /** Add a {@code byte[]} to this stream.  The array is shared and must not be modified afterwards. */
     public CodeBuilder addBinary(byte[] data) {
-        return add(state -> state.write(data));
+        return add(state -> state.writeShared(data));
     }
 }
\ No newline at end of file
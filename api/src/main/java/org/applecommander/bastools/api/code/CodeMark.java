@@ -35,7 +35,8 @@ import java.util.HashMap;
  * @author rob
  */
 public class CodeMark {
-    private static final int LOOP_MAX = 10;
+    /** Number of times a mark may land on the same address before it is considered circular. */
+    static final int LOOP_MAX = 10;
     private final HashMap<Integer,Integer> loopCounter = new HashMap<>();
     private int address;
     
@@ -50,7 +51,8 @@ public class CodeMark {
     public boolean update(GeneratorState state) {
         int currentAddress = state.currentAddress();
         loopCounter.merge(currentAddress, 1, Integer::sum);
-        if (loopCounter.get(currentAddress) > LOOP_MAX) {
+        // Only a move back to a well-visited address is circular; staying put (such as on the emitting pass) is not
+        if (currentAddress != address && loopCounter.get(currentAddress) > LOOP_MAX) {
             StringBuilder sb = new StringBuilder();
             sb.append("A circular pattern in a dynamic address was discovered!\n");
             sb.append("This usually indicates that an address was computed to be just below a page boundary.\n");
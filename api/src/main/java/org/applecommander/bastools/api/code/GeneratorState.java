@@ -19,24 +19,62 @@ package org.applecommander.bastools.api.code;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+import org.applecommander.bastools.api.utils.ByteSink;
 
 /**
  * Track current state of the code generation.  This class proxies a number of objects and can be extended 
  * for those objects as required.
+ * <p>
+ * A pass either sizes (only the length is tracked, so addresses and marks can settle) or emits
+ * (bytes are written as well).  Bytes go to an internal buffer or straight into a caller's stream.
  */
 public class GeneratorState {
     private final int startAddress;
     private boolean markMoved = false;
-    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private int lastMoveFrom;
+    private int lastMoveTo;
+    private boolean emitting = true;
+    private int size;
+    private int passes;
+    private final ByteArrayOutputStream buffer;
+    private final OutputStream sink;
 
     public GeneratorState(int startAddress) { 
         this.startAddress = startAddress;
+        this.buffer = new ByteArrayOutputStream();
+        this.sink = buffer;
+    }
+    /** Emit directly into the given stream; it is written to exactly once, on the emitting pass. */
+    public GeneratorState(int startAddress, OutputStream sink) {
+        this.startAddress = startAddress;
+        this.buffer = null;
+        this.sink = Objects.requireNonNull(sink);
     }
     
-    /** Clear current state for another pass.  Used while the generation is "settling down". */
+    /** Clear current state for another emitting pass. */
     public void reset() {
+        reset(true);
+    }
+    /** Clear current state for another pass.  Used while the generation is "settling down". */
+    public void reset(boolean emit) {
         this.markMoved = false;
-        this.outputStream.reset();
+        this.emitting = emit;
+        this.size = 0;
+        this.passes++;
+        if (buffer != null) buffer.reset();
+    }
+    
+    /** Indicates if this pass captures bytes; sizing passes only track the length. */
+    public boolean isEmitting() {
+        return this.emitting;
+    }
+    /** Number of passes started against this state. */
+    public int getPassCount() {
+        return this.passes;
     }
     
     /** Indicates if a CodeMark has moved. */
@@ -45,25 +83,56 @@ public class GeneratorState {
     }
     /** Hook for the CodeMark to be updated and to capture if a change occurred. */
     public void update(CodeMark mark) {
-        markMoved |= mark.update(this);
+        int from = mark.getAddress();
+        if (mark.update(this)) {
+            markMoved = true;
+            lastMoveFrom = from;
+            lastMoveTo = mark.getAddress();
+        }
+    }
+    /** Describe the most recent mark movement, for diagnostics. */
+    public String describeLastMove() {
+        return String.format("$%04X to $%04X", lastMoveFrom, lastMoveTo);
     }
     
     /** Grab the {@code ByteArrayOutputStream}. Only valid once generation is complete. */
     public ByteArrayOutputStream outputStream() {
-        return this.outputStream;
+        if (buffer == null) {
+            throw new IllegalStateException("Code was emitted into the caller's stream");
+        }
+        return this.buffer;
     }
 
     /** This is the current address as defined by the start address + number of bytes generated. */
     public int currentAddress() {
-        return startAddress + outputStream.size();
+        return startAddress + size;
     }
     
     /** Write a byte to the output stream. */
     public void write(int b) {
-        outputStream.write(b);
+        size++;
+        if (emitting) {
+            try {
+                sink.write(b);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
     }
     /** Write entire byte array to the output stream. */
     public void write(byte[] b) throws IOException {
-        outputStream.write(b);
+        size += b.length;
+        if (emitting) sink.write(b);
+    }
+    /** Write a byte array that will not be modified; a {@code ByteSink} references it instead of copying. */
+    public void writeShared(byte[] b) throws IOException {
+        size += b.length;
+        if (emitting) {
+            if (sink instanceof ByteSink byteSink) {
+                byteSink.writeShared(b);
+            } else {
+                sink.write(b);
+            }
+        }
     }
 }
\ No newline at end of file
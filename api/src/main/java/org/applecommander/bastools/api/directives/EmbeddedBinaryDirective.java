@@ -20,7 +20,6 @@ package org.applecommander.bastools.api.directives;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Files;
 import java.util.Optional;
 
 import org.applecommander.bastools.api.Configuration;
@@ -51,7 +50,7 @@ public class EmbeddedBinaryDirective extends Directive {
 		validateSet(ONLY_ONE, "$embed requires either a 'var' assignment or a 'moveto' parameter", targetAddress, variableName);
 
 		File file = new File(config.sourceFile.getParentFile(), filename);
-		byte[] bin = Files.readAllBytes(file.toPath());
+		byte[] bin = config.assetCache.readAllBytes(file.toPath());
 
 		CodeBuilder builder = new CodeBuilder();
 		CodeMark moveStart = new CodeMark();
@@ -98,7 +97,6 @@ public class EmbeddedBinaryDirective extends Directive {
 	           .addBinary(bin)
 	           .set(embeddedEnd);
 		
-		builder.generate(startAddress)
-		       .writeTo(super.outputStream);
+		builder.generate(startAddress, super.outputStream);
 	}
 }
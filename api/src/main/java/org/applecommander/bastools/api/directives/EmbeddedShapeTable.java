@@ -74,7 +74,8 @@ public class EmbeddedShapeTable extends Directive {
 
         // Load in specified data file
         Optional<byte[]> binData = bin.map(this::readBin);
-        Optional<ShapeTable> shapeTable = src.map(this::readSrc);
+        Optional<GeneratedShapeTable> generated = src.map(this::generateSrc);
+        Optional<ShapeTable> shapeTable = generated.map(GeneratedShapeTable::shapeTable);
 
         // Setup code builders
         CodeMark shapeTableStart = new CodeMark();
@@ -98,9 +99,9 @@ public class EmbeddedShapeTable extends Directive {
         // End line and inject binary content
         basic.endLine().set(shapeTableStart);
         binData.ifPresent(builder::addBinary);
-        shapeTable.map(this::mapShapeTableToBin).ifPresent(builder::addBinary);
+        generated.map(GeneratedShapeTable::data).ifPresent(builder::addBinary);
         
-        builder.generate(startAddress).writeTo(this.outputStream);
+        builder.generate(startAddress, this.outputStream);
     }
     
     public void setupVariables(MapExpression expr, BasicBuilder basic, Optional<ShapeTable> shapeTableOptional) {
@@ -128,7 +129,8 @@ public class EmbeddedShapeTable extends Directive {
     public byte[] readBin(String filename) {
         try {
             File file = new File(config.sourceFile.getParentFile(), filename);
-            return Files.readAllBytes(file.toPath());
+            // Cached bytes are shared
+            return config.assetCache.readAllBytes(file.toPath()).clone();
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
@@ -141,6 +143,18 @@ public class EmbeddedShapeTable extends Directive {
             throw new UncheckedIOException(ex);
         }
     }
+    /** Generate (or reuse) the shape table and its bytes for the given source file; the result is shared. */
+    private GeneratedShapeTable generateSrc(String filename) {
+        try {
+            File file = new File(config.sourceFile.getParentFile(), filename);
+            return config.assetCache.get("shape", file.toPath(), path -> {
+                    ShapeTable shapeTable = ShapeGenerator.generate(path);
+                    return new GeneratedShapeTable(shapeTable, mapShapeTableToBin(shapeTable), Files.size(path));
+                }, GeneratedShapeTable::weight);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
     public byte[] mapShapeTableToBin(ShapeTable shapeTable) {
         try {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -150,4 +164,15 @@ public class EmbeddedShapeTable extends Directive {
             throw new UncheckedIOException(ex);
         }
     }
+
+    /**
+     * A shape table generated from source along with its encoded bytes.  These are shared
+     * through the asset cache, so they never leave this class and must not be modified.
+     */
+    private record GeneratedShapeTable(ShapeTable shapeTable, byte[] data, long sourceSize) {
+        /** Approximate memory held: the source text (as parsed shapes) plus the encoded table. */
+        long weight() {
+            return sourceSize + data.length;
+        }
+    }
 }
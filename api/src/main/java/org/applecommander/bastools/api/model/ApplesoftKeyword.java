@@ -17,6 +17,8 @@
  */
 package org.applecommander.bastools.api.model;
 
+import org.applecommander.bastools.api.utils.CaseInsensitiveIndex;
+
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StreamTokenizer;
@@ -208,14 +210,21 @@ public enum ApplesoftKeyword {
 		return tokenizer;
 	}
 	
-	/** Utility method to locate a keyword ignoring case. */
+	/** Utility method to locate a keyword ignoring case. Matches the first part of the keyword. */
 	public static Optional<ApplesoftKeyword> find(String value) {
 		Objects.requireNonNull(value);
+		return INDEX.find(value);
+	}
+	/** Utility method to locate a single character keyword, such as an operator. */
+	public static Optional<ApplesoftKeyword> find(char ch) {
+		return INDEX.find(ch);
+	}
+	
+	/** Index of the first part of every keyword. When parts collide, the first keyword declared wins. */
+	private static final CaseInsensitiveIndex<ApplesoftKeyword> INDEX = new CaseInsensitiveIndex<>();
+	static {
 		for (ApplesoftKeyword kw : values()) {
-			if (value.equalsIgnoreCase(kw.parts.getFirst())) {
-				return Optional.of(kw);
-			}
+			INDEX.add(kw.parts.getFirst(), kw);
 		}
-		return Optional.empty();
 	}
 }
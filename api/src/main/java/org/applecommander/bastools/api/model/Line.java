@@ -41,13 +41,21 @@ public class Line {
 	}
 	
 	public Optional<Line> nextLine() {
-		int i = program.lines.indexOf(this);
+		int i = program.indexOf(this);
 		if (i == -1 || i+1 >= program.lines.size()) {
 			return Optional.empty();
 		}
 		return Optional.of(program.lines.get(i+1));
 	}
 	
+	public Optional<Line> previousLine() {
+		int i = program.indexOf(this);
+		if (i < 1) {
+			return Optional.empty();
+		}
+		return Optional.of(program.lines.get(i-1));
+	}
+	
 	public Line accept(Visitor t) {
 		return t.visit(this);
 	}
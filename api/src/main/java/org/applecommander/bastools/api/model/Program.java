@@ -18,15 +18,86 @@
 package org.applecommander.bastools.api.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.applecommander.bastools.api.Visitor;
 
 /** A Program is a series of lines. */
 public class Program {
-	public final List<Line> lines = new ArrayList<>();
+	public final List<Line> lines = new IndexedLines();
 	
 	public Program accept(Visitor t) {
 		return t.visit(this);
 	}
+
+	/** Locate the position of a line within this program or -1 if it is not present. */
+	public int indexOf(Line line) {
+		return ((IndexedLines)lines).position(line);
+	}
+
+	/** Locate a line by its line number. The first line wins if there are duplicates. */
+	public Optional<Line> findLine(int lineNumber) {
+		return ((IndexedLines)lines).find(lineNumber);
+	}
+
+	/**
+	 * The list of lines, along with a line and line number index. The index is rebuilt lazily
+	 * after the list changes, so walking an unchanged program is constant time per lookup.
+	 * Each rebuild is published as a single immutable snapshot, so threads that only read an
+	 * unchanged program never see a partially built index.
+	 */
+	private static class IndexedLines extends ArrayList<Line> {
+		private static final long serialVersionUID = 1L;
+		// The index is not serialized; it is rebuilt on first use
+		private transient volatile Index index;
+
+		/** One consistent view of line positions and line numbers, valid for a given modCount. */
+		private record Index(Map<Line,Integer> positions, Map<Integer,Integer> numbers, int modCount) {}
+
+		@Override
+		public Line set(int index, Line line) {
+			// ArrayList does not count a replacement as a modification
+			modCount++;
+			return super.set(index, line);
+		}
+
+		int position(Line line) {
+			Integer i = index(false).positions().get(line);
+			if (i != null && (i >= size() || get(i) != line)) {
+				// Changed without our knowledge (such as through a sublist); start over
+				i = index(true).positions().get(line);
+			}
+			return i == null ? -1 : i;
+		}
+
+		Optional<Line> find(int lineNumber) {
+			Integer i = index(false).numbers().get(lineNumber);
+			if (i != null && (i >= size() || get(i).lineNumber != lineNumber)) {
+				i = index(true).numbers().get(lineNumber);
+			}
+			return Optional.ofNullable(i).map(this::get);
+		}
+
+		private Index index(boolean force) {
+			Index current = index;
+			if (!force && current != null && current.modCount() == modCount) {
+				return current;
+			}
+			int expectedModCount = modCount;
+			Map<Line,Integer> positions = new IdentityHashMap<>();
+			Map<Integer,Integer> numbers = new HashMap<>();
+			for (int i=0; i<size(); i++) {
+				Line line = get(i);
+				positions.putIfAbsent(line, i);
+				numbers.putIfAbsent(line.lineNumber, i);
+			}
+			current = new Index(positions, numbers, expectedModCount);
+			index = current;
+			return current;
+		}
+	}
 }
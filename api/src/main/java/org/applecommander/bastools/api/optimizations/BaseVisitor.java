@@ -17,7 +17,9 @@
  */
 package org.applecommander.bastools.api.optimizations;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.applecommander.bastools.api.Visitor;
@@ -36,18 +38,28 @@ public class BaseVisitor implements Visitor {
 	protected final Map<Integer,Integer> reassignments = new HashMap<>();
 	protected Program newProgram;
 	
+	/** Hook to examine the whole program before it is rewritten. */
+	protected void prepare(Program program) {
+		// Nothing by default
+	}
+	
 	@Override
 	public Program visit(Program program) {
+		prepare(program);
 		newProgram = new Program();
+		List<Integer> pending = new ArrayList<>();
 		program.lines.forEach(l -> {
 			Line line = l.accept(this);
 			boolean lineKept = line != null && !line.statements.isEmpty();
 			if (lineKept) {
 				newProgram.lines.add(line);
-				reassignments.replaceAll((k,v) -> v == null ? l.lineNumber : v);
+				// Patch the place-holders that are still waiting for a line; each is resolved exactly once.
+				pending.forEach(n -> reassignments.replace(n, null, l.lineNumber));
+				pending.clear();
 			} else {
 				// Make a place-holder for the reassignment; we'll patch it in once we find a line that sticks around.
 				reassignments.put(l.lineNumber, null);
+				pending.add(l.lineNumber);
 			}
 		});
 		if (!reassignments.isEmpty()) {
@@ -0,0 +1,124 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.optimizations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Statement;
+import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.visitors.ReassignmentVisitor;
+
+/**
+ * Runs several statement and token level optimizations in one tree walk. Each line is pushed
+ * through the stages in order, exactly as the separate passes would see it, and the line number
+ * reassignments are applied once at the end. A stage may only rewrite statements and tokens and
+ * anything it {@link BaseVisitor#prepare(Program) prepares} must not depend on an earlier stage.
+ */
+public class FusedOptimization extends BaseVisitor {
+    private final List<BaseVisitor> stages;
+    /** For each removed line number, the last stage that moved a reference to it. */
+    private final Map<Integer,Integer> reassignedAt = new HashMap<>();
+
+    public FusedOptimization(List<BaseVisitor> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("At least one optimization is required");
+        }
+        this.stages = List.copyOf(stages);
+    }
+
+    @Override
+    public Program visit(Program program) {
+        stages.forEach(stage -> stage.prepare(program));
+        newProgram = new Program();
+        List<Candidate> candidates = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        List<Integer> pendingStages = new ArrayList<>();
+        for (Line line : program.lines) {
+            // The line goes away with the stage that drops its last statement (an empty line with the first)
+            List<Statement> statements = new ArrayList<>(line.statements.size());
+            int removedAt = 0;
+            for (Statement statement : line.statements) {
+                int stage = 0;
+                while (statement != null && stage < stages.size()) {
+                    statement = statement.accept(stages.get(stage++));
+                }
+                if (statement != null) {
+                    statements.add(statement);
+                } else {
+                    removedAt = Math.max(removedAt, stage-1);
+                }
+            }
+            if (!statements.isEmpty()) {
+                Line newLine = new Line(line.lineNumber, newProgram);
+                newLine.statements.addAll(statements);
+                newProgram.lines.add(newLine);
+                for (int i = 0; i < statements.size(); i++) {
+                    if (ReassignmentVisitor.mayReassign(statements.get(i))) {
+                        candidates.add(new Candidate(newLine, i));
+                    }
+                }
+                // A reference is moved by every stage that removes a line between it and this one
+                int lastStage = -1;
+                for (int i = pending.size()-1; i >= 0; i--) {
+                    lastStage = Math.max(lastStage, pendingStages.get(i));
+                    if (reassignments.replace(pending.get(i), null, line.lineNumber)) {
+                        reassignedAt.put(pending.get(i), lastStage);
+                    }
+                }
+                pending.clear();
+                pendingStages.clear();
+            } else {
+                reassignments.put(line.lineNumber, null);
+                pending.add(line.lineNumber);
+                pendingStages.add(removedAt);
+            }
+        }
+        if (!reassignments.isEmpty() && !candidates.isEmpty()) {
+            reassign(candidates);
+        }
+        return newProgram;
+    }
+
+    /** Patch the line number references; only statements that may have one are rewritten. */
+    private void reassign(List<Candidate> candidates) {
+        ReassignmentVisitor visitor = new ReassignmentVisitor(reassignments) {
+            @Override
+            protected Token reassign(Token token, Integer lineNumber) {
+                Token newToken = super.reassign(token, lineNumber);
+                // Stages after the move still get to see the new line number
+                int lastStage = reassignedAt.get(token.number().intValue());
+                for (BaseVisitor stage : stages.subList(lastStage+1, stages.size())) {
+                    newToken = newToken.accept(stage);
+                }
+                return newToken;
+            }
+        };
+        for (Candidate candidate : candidates) {
+            List<Statement> statements = candidate.line().statements;
+            statements.set(candidate.index(), visitor.visit(statements.get(candidate.index())));
+        }
+    }
+
+    /** A statement (by position, as statements may be shared with the original program) to reassign. */
+    private record Candidate(Line line, int index) {}
+}
@@ -44,7 +44,7 @@ public class ShortenVariableNames extends BaseVisitor {
     }
     
     @Override
-    public Program visit(Program program) {
+    protected void prepare(Program program) {
         // Find existing variable names so we don't clobber already existing names
         VariableCollectorVisitor collector = Visitors.variableCollectorVisitor();
         program.accept(collector);
@@ -63,8 +63,6 @@ public class ShortenVariableNames extends BaseVisitor {
             }
             config.variableReplacements.put(originalName, newName);
         }
-        // Continue walking the tree to replace the variables!
-        return super.visit(program);
     }
 
     @Override
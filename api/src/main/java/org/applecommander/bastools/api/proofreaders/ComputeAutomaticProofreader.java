@@ -20,7 +20,10 @@ package org.applecommander.bastools.api.proofreaders;
 import org.applecommander.bastools.api.Configuration;
 import org.applecommander.bastools.api.model.Program;
 
-public class ComputeAutomaticProofreader implements ApplesoftInputBufferProofReader {
+import java.util.Map;
+import java.util.Optional;
+
+public class ComputeAutomaticProofreader implements ApplesoftInputBufferProofReader, LineIndependentProofReader {
     private final Configuration config;
     private final Checksum checksum = new Checksum();
 
@@ -41,6 +44,31 @@ public class ComputeAutomaticProofreader implements ApplesoftInputBufferProofRea
 
     @Override
     public void addLine(String line) {
+        System.out.printf("%02X | %s\n", computeLine(line), line);
+    }
+
+    @Override
+    public String getName() {
+        return "COMPUTE";
+    }
+
+    @Override
+    public Optional<ProofReaderValue> lineValue(RenderedLine line) {
+        return Optional.of(ProofReaderValue.hex(lineChecksum(line.text(), new Checksum()), 2));
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        return Map.of();
+    }
+
+    /** Answer the checksum for one line of input. */
+    public int computeLine(String line) {
+        return lineChecksum(line, checksum);
+    }
+
+    /** Compute the line value using the given checksum, which is reset first. */
+    public static int lineChecksum(String line, Checksum checksum) {
         checksum.reset();
         for (int i=line.length()-1; i>=0; i--) {
             char ch = line.charAt(i);
@@ -48,8 +76,7 @@ public class ComputeAutomaticProofreader implements ApplesoftInputBufferProofRea
                 checksum.add(ch|0x80);
             }
         }
-
-        System.out.printf("%02X | %s\n", checksum.value(), line);
+        return checksum.value();
     }
 
     // For testing purposes; only valid for the line
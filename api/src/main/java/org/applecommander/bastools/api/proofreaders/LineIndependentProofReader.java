@@ -0,0 +1,40 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+import java.util.Optional;
+
+/**
+ * A {@link LineProofReader} whose per-line value depends only on the line itself.  The value
+ * may be computed for many lines at once, in any order and on any thread; only the (cheap)
+ * program-wide bookkeeping in {@link #accumulate(RenderedLine)} runs in line order.
+ */
+public interface LineIndependentProofReader extends LineProofReader {
+    /** Answer the value for this line.  Must not use mutable state shared between lines. */
+    Optional<ProofReaderValue> lineValue(RenderedLine line);
+    /** Update program-wide values, such as totals; called for every line in order. */
+    default void accumulate(RenderedLine line) {
+        // Nothing by default
+    }
+
+    @Override
+    default Optional<ProofReaderValue> check(RenderedLine line) {
+        accumulate(line);
+        return lineValue(line);
+    }
+}
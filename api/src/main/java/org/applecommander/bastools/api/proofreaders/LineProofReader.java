@@ -0,0 +1,49 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A proofreader that is fed one line at a time, so several proofreaders can share a single
+ * rendering of the program.  See {@link MultiplexedProofReader}.
+ */
+public interface LineProofReader {
+    /** Short name used as the column heading in a combined report. */
+    String getName();
+    /**
+     * Add the next line to the checksums.
+     * @return the value printed alongside this line, if any
+     */
+    Optional<ProofReaderValue> check(RenderedLine line);
+    /** Labelled program-wide values, available once all lines have been checked. */
+    Map<String,ProofReaderValue> summary();
+
+    /**
+     * A program line as it is typed in and as it is tokenized.
+     * @param lineNumber is the BASIC line number
+     * @param text is the listing text (as seen in the input buffer)
+     * @param tokenized is the tokenized line, from the next-line pointer through the ending 0
+     * @param last indicates this is the final line of the program
+     */
+    record RenderedLine(int lineNumber, String text, byte[] tokenized, boolean last) {
+        /** Offset of the first token, following the next-line pointer and the line number. */
+        public static final int BODY = 4;
+    }
+}
@@ -23,6 +23,8 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Perform the MicroSPARC Key Perfect checksum V2.
@@ -58,8 +60,12 @@ import java.util.List;
  * 1710-   60          RTS
  * </pre>
  */
-public class MicrosparcKeyPerfect2 implements ApplesoftTokenizedProofReader {
+public class MicrosparcKeyPerfect2 implements ApplesoftTokenizedProofReader, LineProofReader {
     private final Configuration config;
+    // Running state for check(RenderedLine)
+    private int groupChecksum;
+    private int groupLines;
+    private int totalChecksum = 2;  // Includes the 0000 end pointer
 
     public MicrosparcKeyPerfect2(Configuration config) {
         this.config = config;
@@ -114,6 +120,33 @@ public class MicrosparcKeyPerfect2 implements ApplesoftTokenizedProofReader {
         printLine("PROGRAM TOTAL", programChecksum);
     }
 
+    @Override
+    public String getName() {
+        return "KP2";
+    }
+
+    /** The value for a group of 10 lines is reported on the last line of the group. */
+    @Override
+    public Optional<ProofReaderValue> check(RenderedLine line) {
+        byte[] tokenized = line.tokenized();
+        totalChecksum += tokenized.length;
+        for (int i=2; i<tokenized.length; i++) {
+            groupChecksum += Byte.toUnsignedInt(tokenized[i]);
+        }
+        if (++groupLines == 10 || line.last()) {
+            ProofReaderValue value = value(groupChecksum);
+            groupChecksum = 0;
+            groupLines = 0;
+            return Optional.of(value);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        return Map.of("PROGRAM TOTAL", value(totalChecksum));
+    }
+
     public void printLines(List<Integer> lines, int lineChecksum) {
         int firstLine = lines.getFirst();
         int lastLine = lines.getLast();
@@ -123,6 +156,17 @@ public class MicrosparcKeyPerfect2 implements ApplesoftTokenizedProofReader {
 
     public static void printLine(String text, int checksum) {
         System.out.printf("%-13.13s     ", text);
+        System.out.print(format(checksum));
+        System.out.println();
+    }
+
+    /** The checksum as displayed, without the alignment. */
+    public static ProofReaderValue value(int checksum) {
+        return new ProofReaderValue(checksum, format(checksum).strip());
+    }
+
+    /** Format the checksum right-aligned in 6 characters, as wide as it needs to be. */
+    public static String format(int checksum) {
         String fmt = "    %02X";
         if (checksum > 0xffff) {
             fmt = "%06X";
@@ -130,7 +174,6 @@ public class MicrosparcKeyPerfect2 implements ApplesoftTokenizedProofReader {
         else if (checksum > 0xff) {
             fmt = "  %04X";
         }
-        System.out.printf(fmt, checksum);
-        System.out.println();
+        return String.format(fmt, checksum);
     }
 }
@@ -23,6 +23,8 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Perform the MicroSPARC Key Perfect checksum V4.
@@ -99,8 +101,12 @@ import java.util.List;
  * </pre>
  * ('@' replaced with ']' since Javadoc uses '@' for other purposes.)
  */
-public class MicrosparcKeyPerfect4 implements ApplesoftTokenizedProofReader {
+public class MicrosparcKeyPerfect4 implements ApplesoftTokenizedProofReader, LineProofReader {
     private final Configuration config;
+    // Running state for check(RenderedLine)
+    private final Checksum groupChecksum = new Checksum();
+    private int groupLines;
+    private int totalChecksum = 2;  // Includes the 0000 end pointer
 
     public MicrosparcKeyPerfect4(Configuration config) {
         this.config = config;
@@ -155,6 +161,40 @@ public class MicrosparcKeyPerfect4 implements ApplesoftTokenizedProofReader {
         printLine("PROGRAM TOTAL", programChecksum);
     }
 
+    @Override
+    public String getName() {
+        return "KP4";
+    }
+
+    /** The value for a group of 10 lines is reported on the last line of the group. */
+    @Override
+    public Optional<ProofReaderValue> check(RenderedLine line) {
+        byte[] tokenized = line.tokenized();
+        // Next line pointer and line number always count
+        totalChecksum += 4;
+        groupChecksum.add(Byte.toUnsignedInt(tokenized[2]));
+        groupChecksum.add(Byte.toUnsignedInt(tokenized[3]));
+        for (int i=RenderedLine.BODY; i<tokenized.length; i++) {
+            int ch = Byte.toUnsignedInt(tokenized[i]);
+            if (ch > 0x20 || ch == 0x04) {
+                totalChecksum++;
+                groupChecksum.add(ch);
+            }
+        }
+        if (++groupLines == 10 || line.last()) {
+            ProofReaderValue value = MicrosparcKeyPerfect2.value(groupChecksum.value());
+            groupChecksum.reset();
+            groupLines = 0;
+            return Optional.of(value);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        return Map.of("PROGRAM TOTAL", MicrosparcKeyPerfect2.value(totalChecksum));
+    }
+
     public void printLines(List<Integer> lines, Checksum checksum) {
         int firstLine = lines.getFirst();
         int lastLine = lines.getLast();
@@ -164,14 +204,7 @@ public class MicrosparcKeyPerfect4 implements ApplesoftTokenizedProofReader {
 
     public static void printLine(String text, int checksum) {
         System.out.printf("%-13.13s     ", text);
-        String fmt = "    %02X";
-        if (checksum > 0xffff) {
-            fmt = "%06X";
-        }
-        else if (checksum > 0xff) {
-            fmt = "  %04X";
-        }
-        System.out.printf(fmt, checksum);
+        System.out.print(MicrosparcKeyPerfect2.format(checksum));
         System.out.println();
     }
 
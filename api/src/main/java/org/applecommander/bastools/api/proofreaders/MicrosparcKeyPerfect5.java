@@ -23,6 +23,8 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Perform the MicroSPARC Key Perfect checksum V5.
@@ -123,8 +125,12 @@ import java.util.List;
  * </pre>
  * ('@' replaced with ']' since Javadoc uses '@' for other purposes.)
  */
-public class MicrosparcKeyPerfect5 implements ApplesoftTokenizedProofReader {
+public class MicrosparcKeyPerfect5 implements ApplesoftTokenizedProofReader, LineProofReader {
     private final Configuration config;
+    // Running state for check(RenderedLine)
+    private final Checksum groupChecksum = new Checksum();
+    private final Checksum totalChecksum = new Checksum();
+    private int groupLines;
 
     public MicrosparcKeyPerfect5(Configuration config) {
         this.config = config;
@@ -191,6 +197,50 @@ public class MicrosparcKeyPerfect5 implements ApplesoftTokenizedProofReader {
         printLine("PROGRAM TOTAL", pgmChecksum);
     }
 
+    @Override
+    public String getName() {
+        return "KP5";
+    }
+
+    /** The value for a group of 10 lines is reported on the last line of the group. */
+    @Override
+    public Optional<ProofReaderValue> check(RenderedLine line) {
+        byte[] tokenized = line.tokenized();
+        // Line number always gets added to checksum and total
+        for (int i=2; i<RenderedLine.BODY; i++) {
+            groupChecksum.add(Byte.toUnsignedInt(tokenized[i]));
+            totalChecksum.add(Byte.toUnsignedInt(tokenized[i]));
+        }
+        for (int i=RenderedLine.BODY; i<tokenized.length; i++) {
+            int ch = Byte.toUnsignedInt(tokenized[i]);
+            if (ch == 0xb2) {
+                // REM token counts, the comment does not
+                groupChecksum.add(ch);
+                totalChecksum.add(ch);
+                break;
+            }
+            else if (ch > 0x20 || ch == 0x04) {
+                if (ch >= 0x60 && ch < 0x80) {
+                    ch -= 0x20;     // Force characters to uppercase
+                }
+                groupChecksum.add(ch);
+                totalChecksum.add(ch);
+            }
+        }
+        if (++groupLines == 10 || line.last()) {
+            ProofReaderValue value = ProofReaderValue.hex(Integer.toUnsignedLong(groupChecksum.value()), 8);
+            groupChecksum.reset();
+            groupLines = 0;
+            return Optional.of(value);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        return Map.of("PROGRAM TOTAL", ProofReaderValue.hex(Integer.toUnsignedLong(totalChecksum.value()), 8));
+    }
+
     public void printLines(List<Integer> lines, Checksum checksum) {
         int firstLine = lines.getFirst();
         int lastLine = lines.getLast();
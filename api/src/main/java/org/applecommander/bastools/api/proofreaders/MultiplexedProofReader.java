@@ -0,0 +1,225 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Visitors;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.proofreaders.LineProofReader.RenderedLine;
+import org.applecommander.bastools.api.visitors.ByteVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs several proofreaders over one rendering of the program. The listing text and the
+ * tokenized bytes are each generated once; every line is then handed to all proofreaders and
+ * the results are combined into a single report with a column per proofreader.
+ * <p>
+ * Values of {@link LineIndependentProofReader}s are computed on the fork-join pool for larger
+ * programs, while the remaining proofreaders run in line order on the calling thread.
+ */
+public class MultiplexedProofReader {
+    /** Largest number of lines checked by one fork-join task. */
+    public static final int SPLIT_THRESHOLD = 128;
+    private final Configuration config;
+    private final List<LineProofReader> proofReaders;
+    private boolean parallel = true;
+
+    public MultiplexedProofReader(Configuration config, List<LineProofReader> proofReaders) {
+        this.config = config;
+        this.proofReaders = List.copyOf(proofReaders);
+    }
+
+    /** Allow line-independent values to be computed in parallel (the default). */
+    public MultiplexedProofReader parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /** Check the program with every proofreader and collect the results. */
+    public Report addProgram(Program program) {
+        Report.Collector collector = new Report.Collector();
+        addProgram(program, collector);
+        return collector.toReport();
+    }
+
+    /** Check the program with every proofreader, handing results to the listener in line order. */
+    public void addProgram(Program program, Listener listener) {
+        List<String> names = proofReaders.stream().map(LineProofReader::getName).toList();
+        listener.start(names);
+        List<RenderedLine> lines = render(program);
+        ProofReaderValue[][] values = new ProofReaderValue[lines.size()][proofReaders.size()];
+        List<Integer> independent = new ArrayList<>();
+        for (int p = 0; p < proofReaders.size(); p++) {
+            if (proofReaders.get(p) instanceof LineIndependentProofReader) independent.add(p);
+        }
+        ForkJoinTask<Void> task = null;
+        if (parallel && !independent.isEmpty() && lines.size() > SPLIT_THRESHOLD) {
+            task = ForkJoinPool.commonPool().submit(new LineValues(lines, independent, values, 0, lines.size()));
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            RenderedLine line = lines.get(i);
+            for (int p = 0; p < proofReaders.size(); p++) {
+                LineProofReader proofReader = proofReaders.get(p);
+                if (task != null && proofReader instanceof LineIndependentProofReader lineIndependent) {
+                    lineIndependent.accumulate(line);
+                } else {
+                    values[i][p] = proofReader.check(line).orElse(null);
+                }
+            }
+        }
+        if (task != null) task.join();
+        for (int i = 0; i < lines.size(); i++) {
+            Map<String,ProofReaderValue> lineValues = new LinkedHashMap<>();
+            for (int p = 0; p < proofReaders.size(); p++) {
+                if (values[i][p] != null) lineValues.put(names.get(p), values[i][p]);
+            }
+            listener.line(new Row(lines.get(i).lineNumber(), lines.get(i).text(), lineValues));
+        }
+        for (LineProofReader proofReader : proofReaders) {
+            proofReader.summary().forEach((label, value) -> listener.total(new Total(proofReader.getName(), label, value)));
+        }
+        listener.end();
+    }
+
+    /** Generate the listing text and tokenized bytes once and pair them up line by line. */
+    public List<RenderedLine> render(Program program) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream printStream = new PrintStream(outputStream);
+        program.accept(Visitors.printBuilder(config).printStream(printStream).print().build());
+        printStream.flush();
+        List<String> text = outputStream.toString().lines().toList();
+        if (text.size() != program.lines.size()) {
+            throw new RuntimeException(String.format("Expecting %d lines of listing text but found %d",
+                    program.lines.size(), text.size()));
+        }
+
+        ByteVisitor byteVisitor = new ByteVisitor(config);
+        byte[] code = byteVisitor.dump(program);
+
+        List<RenderedLine> lines = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < program.lines.size(); i++) {
+            int link = Byte.toUnsignedInt(code[offset]) | Byte.toUnsignedInt(code[offset+1]) << 8;
+            int next = link - config.startAddress;
+            if (next <= offset || next > code.length) {
+                throw new RuntimeException(String.format("Invalid next-line pointer $%04X at offset %d", link, offset));
+            }
+            byte[] tokenized = new byte[next - offset];
+            System.arraycopy(code, offset, tokenized, 0, tokenized.length);
+            int lineNumber = program.lines.get(i).lineNumber;
+            lines.add(new RenderedLine(lineNumber, text.get(i), tokenized, i == program.lines.size() - 1));
+            offset = next;
+        }
+        return lines;
+    }
+
+    /** Compute line-independent values for a range of lines, splitting large ranges in half. */
+    private class LineValues extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient List<RenderedLine> lines;
+        private final transient List<Integer> independent;
+        private final transient ProofReaderValue[][] values;
+        private final int start;
+        private final int end;
+
+        LineValues(List<RenderedLine> lines, List<Integer> independent, ProofReaderValue[][] values, int start, int end) {
+            this.lines = lines;
+            this.independent = independent;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > SPLIT_THRESHOLD) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new LineValues(lines, independent, values, start, middle),
+                          new LineValues(lines, independent, values, middle, end));
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                for (int p : independent) {
+                    values[i][p] = ((LineIndependentProofReader) proofReaders.get(p)).lineValue(lines.get(i)).orElse(null);
+                }
+            }
+        }
+    }
+
+    /** Receives the results of {@link #addProgram(Program, Listener)}. */
+    public interface Listener {
+        /** Called first, with the proofreader names in column order. */
+        default void start(List<String> proofReaders) {}
+        /** Called for each program line, in order. */
+        void line(Row row);
+        /** Called for each program-wide value once all lines are done. */
+        void total(Total total);
+        /** Called last. */
+        default void end() {}
+    }
+
+    /** A program line with the values reported for it, keyed by proofreader name. */
+    public record Row(int lineNumber, String text, Map<String,ProofReaderValue> values) {}
+
+    /** A program-wide value, such as a program total. */
+    public record Total(String proofReader, String label, ProofReaderValue value) {}
+
+    /** The combined result of all proofreaders. */
+    public record Report(List<String> proofReaders, List<Row> rows, List<Total> totals) {
+        /** Find a program-wide value. */
+        public Optional<ProofReaderValue> total(String proofReader, String label) {
+            return totals.stream()
+                    .filter(t -> t.proofReader.equals(proofReader) && t.label.equals(label))
+                    .map(Total::value)
+                    .findFirst();
+        }
+
+        /** A listener that gathers everything into a {@code Report}. */
+        public static class Collector implements Listener {
+            private List<String> proofReaders = List.of();
+            private final List<Row> rows = new ArrayList<>();
+            private final List<Total> totals = new ArrayList<>();
+
+            @Override
+            public void start(List<String> proofReaders) {
+                this.proofReaders = proofReaders;
+            }
+            @Override
+            public void line(Row row) {
+                rows.add(row);
+            }
+            @Override
+            public void total(Total total) {
+                totals.add(total);
+            }
+            public Report toReport() {
+                return new Report(proofReaders, List.copyOf(rows), List.copyOf(totals));
+            }
+        }
+    }
+}
@@ -20,10 +20,16 @@ package org.applecommander.bastools.api.proofreaders;
 import org.applecommander.bastools.api.Configuration;
 import org.applecommander.bastools.api.model.Program;
 
-public class NibbleAppleChecker implements ApplesoftTokenizedProofReader {
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class NibbleAppleChecker implements ApplesoftTokenizedProofReader, LineProofReader {
     private final Configuration config;
     private int length;
     private final Checksum checksum = new Checksum();
+    /** Bytes counted by {@link #check(RenderedLine)}; the reported length is one less. */
+    private int counted;
 
     public NibbleAppleChecker(Configuration config) {
         this.config = config;
@@ -50,11 +56,14 @@ public class NibbleAppleChecker implements ApplesoftTokenizedProofReader {
         // Length is less 2 for Applesoft
         length = tokenizedProgram.length+1 - 2;
         // Zero out the next line links
-        int nextAddr = config.startAddress;
-        while (nextAddr >= 0 && nextAddr < tokenizedProgram.length) {
-            nextAddr = (tokenizedProgram[nextAddr+1]<<8 | tokenizedProgram[nextAddr]) - config.startAddress;
-            tokenizedProgram[nextAddr] = 0;
-            tokenizedProgram[nextAddr+1] = 0;
+        int offset = 0;
+        while (offset >= 0 && offset+1 < tokenizedProgram.length) {
+            int nextAddr = Byte.toUnsignedInt(tokenizedProgram[offset+1]) << 8 | Byte.toUnsignedInt(tokenizedProgram[offset]);
+            tokenizedProgram[offset] = 0;
+            tokenizedProgram[offset+1] = 0;
+            int nextOffset = nextAddr - config.startAddress;
+            if (nextAddr == 0 || nextOffset <= offset) break;
+            offset = nextOffset;
         }
         // Compute checksum
         checksum.reset();
@@ -69,6 +78,34 @@ public class NibbleAppleChecker implements ApplesoftTokenizedProofReader {
         }
     }
 
+    @Override
+    public String getName() {
+        return "APPLE-CHECKER";
+    }
+
+    /** The next-line pointer is zeroed (and therefore skipped), so only the remaining bytes count. */
+    @Override
+    public Optional<ProofReaderValue> check(RenderedLine line) {
+        byte[] tokenized = line.tokenized();
+        for (int i=2; i<tokenized.length; i++) {
+            int acc = Byte.toUnsignedInt(tokenized[i]);
+            if (acc >= 0x21 || acc == 0x04) {
+                checksum.add(acc);
+                counted++;
+            }
+        }
+        length = counted - 1;
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        Map<String,ProofReaderValue> summary = new LinkedHashMap<>();
+        summary.put("LENGTH", ProofReaderValue.hex(length, 4));
+        summary.put("CHECKSUM", ProofReaderValue.hex(checksum.value(), 2));
+        return summary;
+    }
+
     public int getLength() {
         return length;
     }
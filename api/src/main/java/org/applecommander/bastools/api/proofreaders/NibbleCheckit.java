@@ -19,7 +19,10 @@ package org.applecommander.bastools.api.proofreaders;
 
 import org.applecommander.bastools.api.Configuration;
 
-public class NibbleCheckit implements ApplesoftInputBufferProofReader {
+import java.util.Map;
+import java.util.Optional;
+
+public class NibbleCheckit implements ApplesoftInputBufferProofReader, LineIndependentProofReader {
     private final Configuration config;
     private final Checksum totalChecksum = new Checksum();
     private final Checksum lineChecksum = new Checksum();
@@ -44,7 +47,46 @@ public class NibbleCheckit implements ApplesoftInputBufferProofReader {
     /** {@inheritDoc} */
     @Override
     public void addLine(final String originalLine) {
-        // Calculate and output line value
+        System.out.printf("%02X | %s\n", computeLine(originalLine), originalLine);
+    }
+
+    @Override
+    public String getName() {
+        return "CHECKIT";
+    }
+
+    @Override
+    public Optional<ProofReaderValue> lineValue(RenderedLine line) {
+        return Optional.of(ProofReaderValue.hex(lineChecksum(line.text(), new Checksum()), 2));
+    }
+
+    @Override
+    public void accumulate(RenderedLine line) {
+        totalChecksum.add(line.lineNumber() & 0xff);
+        totalChecksum.add(line.lineNumber() >> 8);
+    }
+
+    @Override
+    public Map<String, ProofReaderValue> summary() {
+        // Displayed low byte first
+        String text = String.format("%02X%02X", totalChecksum.checksum & 0xff, totalChecksum.checksum >> 8);
+        return Map.of("TOTAL", new ProofReaderValue(totalChecksum.checksum, text));
+    }
+
+    /** Add the line to the program total and answer the line value. */
+    public int computeLine(final String originalLine) {
+        int value = lineChecksum(originalLine, lineChecksum);
+
+        // Update program values
+        int lineNumber = Integer.parseInt(originalLine.split(" ")[0].trim());
+        totalChecksum.add(lineNumber & 0xff);
+        totalChecksum.add(lineNumber >> 8);
+
+        return value;
+    }
+
+    /** Compute the line value using the given checksum, which is reset first. */
+    public static int lineChecksum(final String originalLine, Checksum lineChecksum) {
         lineChecksum.reset();
 
         // The ? => PRINT replacement always occurs, including in strings!
@@ -70,13 +112,7 @@ public class NibbleCheckit implements ApplesoftInputBufferProofReader {
             }
         }
 
-        int cs = ( (lineChecksum.checksum & 0xff) - (lineChecksum.checksum >> 8) ) & 0xff;
-        System.out.printf("%02X | %s\n", cs, originalLine);
-
-        // Update program values
-        int lineNumber = Integer.parseInt(line.split(" ")[0].trim());
-        totalChecksum.add(lineNumber & 0xff);
-        totalChecksum.add(lineNumber >> 8);
+        return ( (lineChecksum.checksum & 0xff) - (lineChecksum.checksum >> 8) ) & 0xff;
     }
 
     public int getLineChecksumValue() {
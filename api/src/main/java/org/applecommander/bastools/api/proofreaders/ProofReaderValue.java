@@ -0,0 +1,34 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+/**
+ * A checksum reported by a proofreader: the raw value along with the text the original
+ * program displays for it (which is not always a simple hex dump, see Nibble Checkit's total).
+ */
+public record ProofReaderValue(long value, String text) {
+    /** A value displayed as hex with the given number of digits. */
+    public static ProofReaderValue hex(long value, int digits) {
+        return new ProofReaderValue(value, String.format("%0" + digits + "X", value));
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
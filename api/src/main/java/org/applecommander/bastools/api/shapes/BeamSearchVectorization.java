@@ -0,0 +1,324 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.shapes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Encode a bitmap shape by searching for the shortest byte encoding instead of following a fixed path.
+ * <p>
+ * The search emits one shape byte at a time, so it works with the real packing of up to three vectors
+ * per byte. Only bytes that {@link VectorShape#toBytes()} would produce are considered:
+ * <ul>
+ * <li>the third vector must be a move right, down or left;</li>
+ * <li>a byte of two vectors must be followed by a plot or a move up (otherwise the encoder would have
+ *     packed the next vector into it), and its second vector cannot be a move up;</li>
+ * <li>a single vector byte can only end the shape.</li>
+ * </ul>
+ * Every pixel is plotted exactly once and nothing else is plotted, so the shape also works with XDRAW.
+ * <p>
+ * The search is a beam search: each round keeps the best {@code width} partial encodings, ranked by the
+ * pixels still to plot and then the moves needed to reach the nearest of them. Only encodings shorter than
+ * the result of {@link BitmapShape#toVector()} are pursued, and that result is used when the search finds
+ * nothing better, so the search is never worse than the heuristics.
+ * <p>
+ * With a time budget, the search starts with a beam width of 1 and widens the beam until the budget runs
+ * out, keeping the shortest encoding found; the result may then depend on how fast the machine is. With a
+ * fixed width, a single search is run without a time limit and the result is always the same.
+ */
+public class BeamSearchVectorization implements Supplier<VectorShape> {
+    public static final int MAX_WIDTH = 4096;
+    private static final VectorCommand[] COMMANDS = VectorCommand.values();
+    /** Vectors that fit in the 2-bit third section of a byte. */
+    private static final VectorCommand[] THIRD = { VectorCommand.MOVE_RIGHT, VectorCommand.MOVE_DOWN, VectorCommand.MOVE_LEFT };
+
+    private final BitmapShape bitmapShape;
+    /** Time allowed for widening the beam, or null for a single search with a fixed width. */
+    private final Duration budget;
+    private final int width;
+    /** Grid of the bitmap plus a one pixel border (and the origin); moves may not leave it. */
+    private final int left;
+    private final int top;
+    private final int columns;
+    private final int rows;
+    /** Target number for each padded grid position, or -1 when the pixel must not be plotted. */
+    private final int[] targets;
+    /** Padded grid position of each target. */
+    private final int[] positions;
+    private final int targetCount;
+    private int completedWidth;
+
+    /** Widen the beam until the time budget runs out; the result may depend on how fast the machine is. */
+    public BeamSearchVectorization(BitmapShape bitmapShape, Duration budget) {
+        this(bitmapShape, Objects.requireNonNull(budget), MAX_WIDTH);
+    }
+
+    /** Run a single search with the given beam width and no time limit, so the result is always the same. */
+    public BeamSearchVectorization(BitmapShape bitmapShape, int width) {
+        this(bitmapShape, null, checkWidth(width));
+    }
+
+    private static int checkWidth(int width) {
+        if (width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException(String.format("Beam width must be 1 to %d: %d", MAX_WIDTH, width));
+        }
+        return width;
+    }
+
+    private BeamSearchVectorization(BitmapShape bitmapShape, Duration budget, int width) {
+        this.bitmapShape = Objects.requireNonNull(bitmapShape);
+        this.budget = budget;
+        this.width = width;
+        this.left = Math.min(-1, bitmapShape.origin.x);
+        this.top = Math.min(-1, bitmapShape.origin.y);
+        this.columns = Math.max(bitmapShape.getWidth(), bitmapShape.origin.x) + 1 - left;
+        this.rows = Math.max(bitmapShape.getHeight(), bitmapShape.origin.y) + 1 - top;
+        this.targets = new int[columns * rows];
+        this.positions = new int[targets.length];
+        int count = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (bitmapShape.get(i % columns + left, i / columns + top)) {
+                positions[count] = i;
+                targets[i] = count++;
+            } else {
+                targets[i] = -1;
+            }
+        }
+        this.targetCount = count;
+    }
+
+    /** The widest beam that finished within the budget (0 if none did); only meaningful after {@link #get()}. */
+    public int getCompletedWidth() {
+        return completedWidth;
+    }
+
+    @Override
+    public VectorShape get() {
+        long deadline = budget == null ? Long.MAX_VALUE : System.nanoTime() + budget.toNanos();
+        VectorShape heuristic = bitmapShape.toVector();
+        // Byte count to beat, leaving out the terminating zero byte
+        int bound = heuristic.encodedLength() - 1;
+        Node best = null;
+        for (int w = budget == null ? width : 1; w <= width; w *= 4) {
+            Node found = search(w, deadline, best == null ? bound : best.depth);
+            if (found != null) {
+                best = found;
+            } else if (System.nanoTime() >= deadline) {
+                break;
+            }
+            completedWidth = w;
+        }
+        if (best == null) {
+            return heuristic;
+        }
+        List<Node> path = new ArrayList<>();
+        for (Node node = best; node.parent != null; node = node.parent) {
+            path.add(node);
+        }
+        VectorShape vectorShape = new VectorShape();
+        for (Node node : path.reversed()) {
+            for (int i = 0; i < node.count; i++) {
+                vectorShape.append(COMMANDS[(node.code >> (3 * i)) & 0b111]);
+            }
+        }
+        return vectorShape;
+    }
+
+    /**
+     * Run one beam search for an encoding shorter than {@code bound} bytes; answers the completed node,
+     * or null if there is none or the deadline passed.
+     */
+    private Node search(int width, long deadline, int bound) {
+        Progress start = new Progress(new long[(targetCount + Long.SIZE - 1) / Long.SIZE], targetCount);
+        Node root = new Node(null, bitmapShape.origin.x - left, bitmapShape.origin.y - top, false, start, 0, 0);
+        if (targetCount == 0) return root;
+        List<Node> beam = List.of(root);
+        while (!beam.isEmpty()) {
+            if (System.nanoTime() >= deadline) return null;
+            Map<Node,Node> next = new HashMap<>();
+            for (Node node : beam) {
+                Node done = expand(node, next);
+                if (done != null) return done.depth < bound ? done : null;
+            }
+            List<Node> candidates = new ArrayList<>();
+            for (Node node : next.keySet()) {
+                // A byte plots at most two pixels, so this node cannot finish in fewer bytes
+                if (node.depth + (node.progress.remaining + 1) / 2 >= bound) continue;
+                node.distance = node.progress.distance(node.x, node.y);
+                candidates.add(node);
+            }
+            candidates.sort(RANKING);
+            beam = candidates.size() > width ? candidates.subList(0, width) : candidates;
+        }
+        return null;
+    }
+
+    private static final Comparator<Node> RANKING = Comparator.<Node>comparingInt(n -> n.progress.remaining)
+            .thenComparingInt(n -> n.distance)
+            .thenComparing(n -> n.restricted);
+
+    /** Add every valid byte that can follow this node; answers a node that plots the last pixel, if any. */
+    private Node expand(Node node, Map<Node,Node> next) {
+        for (VectorCommand v1 : COMMANDS) {
+            if (node.restricted && !(v1.plot || v1 == VectorCommand.MOVE_UP)) continue;
+            Step s1 = step(node.x, node.y, node.progress, v1);
+            if (s1 == null) continue;
+            if (s1.progress.remaining == 0) {
+                return node(node, s1, false, v1.ordinal(), 1);
+            }
+            for (VectorCommand v2 : COMMANDS) {
+                Step s2 = step(s1.x, s1.y, s1.progress, v2);
+                if (s2 == null) continue;
+                int code2 = v1.ordinal() | v2.ordinal() << 3;
+                if (v2 != VectorCommand.MOVE_UP) {
+                    Node candidate = node(node, s2, true, code2, 2);
+                    if (s2.progress.remaining == 0) return candidate;
+                    next.putIfAbsent(candidate, candidate);
+                }
+                for (VectorCommand v3 : THIRD) {
+                    Step s3 = step(s2.x, s2.y, s2.progress, v3);
+                    if (s3 == null) continue;
+                    Node candidate = node(node, s3, false, code2 | v3.ordinal() << 6, 3);
+                    next.putIfAbsent(candidate, candidate);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Node node(Node parent, Step step, boolean restricted, int code, int count) {
+        return new Node(parent, step.x, step.y, restricted, step.progress, code, count);
+    }
+
+    /** Apply a vector; answers null if it plots a pixel that is not wanted (or already plotted) or leaves the grid. */
+    private Step step(int x, int y, Progress progress, VectorCommand vector) {
+        if (vector.plot) {
+            int target = targets[y * columns + x];
+            if (target < 0 || progress.isPlotted(target)) return null;
+            progress = progress.plot(target);
+        }
+        x += vector.xmove;
+        y += vector.ymove;
+        if (x < 0 || x >= columns || y < 0 || y >= rows) return null;
+        return new Step(x, y, progress);
+    }
+
+    private record Step(int x, int y, Progress progress) {}
+
+    /** The pixels plotted so far. Shared by every node that reaches it without plotting. */
+    private class Progress {
+        private final long[] plotted;
+        private final int remaining;
+        private final int hashCode;
+
+        private Progress(long[] plotted, int remaining) {
+            this.plotted = plotted;
+            this.remaining = remaining;
+            this.hashCode = Arrays.hashCode(plotted);
+        }
+        private boolean isPlotted(int target) {
+            return (plotted[target >>> 6] & (1L << target)) != 0;
+        }
+        private Progress plot(int target) {
+            long[] copy = plotted.clone();
+            copy[target >>> 6] |= 1L << target;
+            return new Progress(copy, remaining - 1);
+        }
+        /**
+         * Moves needed to reach the nearest pixel still to plot. Moves are free within the grid, so this is
+         * the smallest Manhattan distance. Nearby pixels are found by checking the diamond around the position
+         * ring by ring; once the rings cost more than the remaining pixels, each of those is checked instead.
+         */
+        private int distance(int x, int y) {
+            int d = 0;
+            for (; 2 * d * d < remaining; d++) {
+                for (int dx = -d; dx <= d; dx++) {
+                    int dy = d - Math.abs(dx);
+                    if (isWanted(x + dx, y + dy) || (dy != 0 && isWanted(x + dx, y - dy))) return d;
+                }
+            }
+            int nearest = Integer.MAX_VALUE;
+            for (int i = 0; i < plotted.length; i++) {
+                for (long bits = ~plotted[i]; bits != 0; bits &= bits - 1) {
+                    int target = i * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    if (target >= targetCount) break;
+                    int position = positions[target];
+                    nearest = Math.min(nearest, Math.abs(position % columns - x) + Math.abs(position / columns - y));
+                }
+            }
+            return nearest;
+        }
+        private boolean isWanted(int x, int y) {
+            if (x < 0 || x >= columns || y < 0 || y >= rows) return false;
+            int target = targets[y * columns + x];
+            return target >= 0 && !isPlotted(target);
+        }
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Progress that && (this == that || Arrays.equals(plotted, that.plotted));
+        }
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /** A partial encoding: the position after the bytes so far and the last byte (up to three vectors). */
+    private static class Node {
+        private final Node parent;
+        private final int x;
+        private final int y;
+        /** The last byte held only two vectors, so the next vector must be a plot or a move up. */
+        private final boolean restricted;
+        private final Progress progress;
+        private final int code;
+        private final int count;
+        private final int depth;
+        private final int hashCode;
+        private int distance;
+
+        private Node(Node parent, int x, int y, boolean restricted, Progress progress, int code, int count) {
+            this.parent = parent;
+            this.x = x;
+            this.y = y;
+            this.restricted = restricted;
+            this.progress = progress;
+            this.code = code;
+            this.count = count;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.hashCode = Objects.hash(x, y, restricted, progress);
+        }
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Node that && x == that.x && y == that.y && restricted == that.restricted
+                    && progress.equals(that.progress);
+        }
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -18,9 +18,13 @@
 package org.applecommander.bastools.api.shapes;
 
 import java.awt.Point;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -28,11 +32,29 @@ import java.util.function.Supplier;
  * Represents a bitmap copy of the shape.
  * This may be useful for displaying the shape or for defining shapes as a bitmap is 
  * easier to understand than vectors.
+ * <p>
+ * Pixels are packed into a {@code long[]} with spare rows and columns on every side, so
+ * growing the bitmap in any direction is amortized constant time. The {@link #grid} field
+ * is a live view of the pixels.
  */
 public class BitmapShape implements Shape {
+    private static final long[] EMPTY = new long[0];
+
     public final String label;
-    public final List<List<Boolean>> grid = new ArrayList<>();
+    /** Live view of the pixels by row; rows are writable but the grid only grows through this class. */
+    public final List<List<Boolean>> grid = new GridView();
     public final Point origin = new Point();
+
+    private long[] bits = EMPTY;
+    /** Number of longs per physical row. */
+    private int stride;
+    /** Number of physical rows allocated. */
+    private int capacity;
+    /** Physical row and column of pixel (0,0). */
+    private int top;
+    private int left;
+    private int width;
+    private int height;
     
     public BitmapShape() {
         this(0, 0, null);
@@ -45,103 +67,150 @@ public class BitmapShape implements Shape {
     }
     public BitmapShape(int height, int width, String label) {
         this.label = label;
-        while (this.grid.size() < height) {
-            this.grid.add(newRow(width));
+        if (height > 0) {
+            reserve(0, height, 0, width);
+            this.height = height;
+            this.width = width;
         }
     }
-    
-    private List<Boolean> newRow(int width) {
-        List<Boolean> row = new ArrayList<>();
-        while (row.size() < width) {
-            row.add(Boolean.FALSE);
+
+    /**
+     * Make room for the requested number of rows/columns on each side. When the bitmap has to be
+     * reallocated, each side that ran out of room gets at least as much room as the current size.
+     */
+    private void reserve(int rowsAbove, int rowsBelow, int columnsLeft, int columnsRight) {
+        int roomBelow = capacity - top - height;
+        int roomRight = stride * Long.SIZE - left - width;
+        if (top >= rowsAbove && roomBelow >= rowsBelow && left >= columnsLeft && roomRight >= columnsRight) {
+            return;
         }
-        return row;
+        int newTop = top >= rowsAbove ? top : Math.max(rowsAbove, Math.max(height, 4));
+        int newBelow = roomBelow >= rowsBelow ? roomBelow : Math.max(rowsBelow, Math.max(height, 4));
+        int newLeft = left >= columnsLeft ? left : Math.max(columnsLeft, Math.max(width, 4));
+        int newRight = roomRight >= columnsRight ? roomRight : Math.max(columnsRight, Math.max(width, 4));
+        int newStride = (newLeft + width + newRight + Long.SIZE - 1) / Long.SIZE;
+        int newCapacity = newTop + height + newBelow;
+        long[] newBits = new long[newStride * newCapacity];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (isSet(x, y)) {
+                    int column = newLeft + x;
+                    newBits[(newTop + y) * newStride + (column >>> 6)] |= 1L << column;
+                }
+            }
+        }
+        this.bits = newBits;
+        this.stride = newStride;
+        this.capacity = newCapacity;
+        this.top = newTop;
+        this.left = newLeft;
     }
     
+    /** Columns only exist within rows, so adding a column to a bitmap without rows has no effect. */
     public void insertColumn() {
         origin.x++;
-        for (List<Boolean> row : grid) {
-            row.addFirst(Boolean.FALSE);
-        }
+        if (height == 0) return;
+        reserve(0, 0, 1, 0);
+        left--;
+        width++;
     }
     public void addColumn() {
-        for (List<Boolean> row : grid) {
-            row.add(Boolean.FALSE);
-        }
+        if (height == 0) return;
+        reserve(0, 0, 0, 1);
+        width++;
     }
     public void insertRow() {
+        reserve(1, 0, 0, 0);
         origin.y++;
-        grid.addFirst(newRow(getWidth()));
+        top--;
+        height++;
     }
     public void addRow() {
-        grid.add(newRow(getWidth()));
+        reserve(0, 1, 0, 0);
+        height++;
     }
     
+    /**
+     * Append a row of pixels. Rows of differing lengths are allowed; the bitmap is as wide as
+     * the longest row with shorter rows padded by unplotted pixels.
+     */
     public void appendBitmapRow(String line) {
         line = line.trim();
-        List<Boolean> row = new ArrayList<>();
-        Runnable setOrigin = () -> {
-                // Share origin logic for '+' and '*'
-                origin.x = row.size();
-                origin.y = grid.size();
-            };
-        for (char pixel : line.toCharArray()) {
+        if (line.length() > width) {
+            reserve(0, 1, 0, line.length() - width);
+            width = line.length();
+        }
+        addRow();
+        int y = height - 1;
+        for (int x = 0; x < line.length(); x++) {
+            char pixel = line.charAt(x);
             switch (Character.toLowerCase(pixel)) {
             case '+':
-                setOrigin.run();
+                origin.setLocation(x, y);
                 // fall through to '.'
             case '.':
-                row.add(Boolean.FALSE);
                 break;
             case '*':
-                setOrigin.run();
+                origin.setLocation(x, y);
                 // fall through to 'x'
             case 'x':
-                row.add(Boolean.TRUE);
+                set(x, y, true);
                 break;
             default:
                 throw new RuntimeException("Unexpected bitmap pixel type: " + pixel);
             }
         }
-        grid.add(row);
     }
     
     public int getHeight() {
-        return grid.size(); 
+        return height; 
     }
     public int getWidth() {
-        return grid.isEmpty() ? 0 : grid.getFirst().size();
+        return width;
     }
     
     public void plot(int x, int y) {
         plot(x, y, Boolean.TRUE);
     }
     public void plot(int x, int y, Boolean pixel) {
-        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
             return; 
         }
-        grid.get(y).set(x, pixel);
+        set(x, y, pixel);
     }
     
     public Boolean get(int x, int y) {
-        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
             return Boolean.FALSE; 
         }
-        return grid.get(y).get(x);
+        return isSet(x, y);
     }
     public Boolean get(Point point) {
         return get(point.x, point.y);
     }
+
+    /** Unchecked pixel test; caller guarantees the coordinates are within the bitmap. */
+    private boolean isSet(int x, int y) {
+        int column = left + x;
+        return (bits[(top + y) * stride + (column >>> 6)] & (1L << column)) != 0;
+    }
+    private void set(int x, int y, boolean pixel) {
+        int column = left + x;
+        int index = (top + y) * stride + (column >>> 6);
+        if (pixel) {
+            bits[index] |= 1L << column;
+        } else {
+            bits[index] &= ~(1L << column);
+        }
+    }
     
     @Override
     public boolean isEmpty() {
-        boolean hasData = false;
-        for (List<Boolean> row : grid) {
-            for (Boolean plot : row) {
-                hasData |= plot;
-            }
+        // Space outside the bitmap is never plotted, so any set bit is a plotted pixel
+        for (long word : bits) {
+            if (word != 0) return false;
         }
-        return !hasData;
+        return true;
     }
     
     @Override
@@ -156,10 +225,23 @@ public class BitmapShape implements Shape {
 
     /**
      * Convert this bitmap shape to a vector shape.  The shape chosen encodes to the least number of bytes
-     * in the resulting file.
+     * in the resulting file; on a tie, the later candidate wins.  Candidates are generated in parallel and
+     * the result is remembered for identical bitmaps (same pixels and origin).
      */
     @Override
     public VectorShape toVector() {
+        Content content = new Content(this);
+        List<VectorCommand> vectors = VECTOR_CACHE.get(content);
+        if (vectors == null) {
+            vectors = List.copyOf(vectorize().vectors);
+            VECTOR_CACHE.put(content, vectors);
+        }
+        VectorShape vshape = new VectorShape();
+        vshape.vectors.addAll(vectors);
+        return vshape;
+    }
+
+    private VectorShape vectorize() {
         List<Supplier<VectorShape>> scans = Arrays.asList(
                 new SweepVectorization(this, VectorCommand.MOVE_RIGHT, VectorCommand.MOVE_UP),
                 new SweepVectorization(this, VectorCommand.MOVE_RIGHT, VectorCommand.MOVE_DOWN),
@@ -171,19 +253,71 @@ public class BitmapShape implements Shape {
                 new SweepVectorization(this, VectorCommand.MOVE_UP, VectorCommand.MOVE_LEFT),
                 new EuclidianDistanceVectorization(this)
             );
+        // Encounter order is kept, so the tie-breaking below matches a sequential scan
+        List<Candidate> candidates = scans.parallelStream()
+                .map(Supplier::get)
+                .map(shape -> new Candidate(shape, shape.encodedLength()))
+                .toList();
         
         int byteLength = Integer.MAX_VALUE;
         VectorShape vshape = null;
-        for (Supplier<VectorShape> scan : scans) {
-            VectorShape candidate = scan.get();
-            int length = candidate.toBytes().length;
-            if (vshape == null || byteLength >= length) {
-                vshape = candidate;
-                byteLength = length;
+        for (Candidate candidate : candidates) {
+            if (vshape == null || byteLength >= candidate.length()) {
+                vshape = candidate.shape();
+                byteLength = candidate.length();
             }
         }
         return vshape;
     }
+
+    private record Candidate(VectorShape shape, int length) {}
+
+    /** Vectorized bitmaps, most recently used last. */
+    private static final Map<Content,List<VectorCommand>> VECTOR_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Content,List<VectorCommand>> eldest) {
+                    return size() > VECTOR_CACHE_SIZE;
+                }
+            });
+    private static final int VECTOR_CACHE_SIZE = 1024;
+
+    /** Snapshot of the pixels and origin of a bitmap, used as the vector cache key. */
+    private static final class Content {
+        private final int width;
+        private final int height;
+        private final int originX;
+        private final int originY;
+        private final long[] pixels;
+        private final int hashCode;
+
+        private Content(BitmapShape shape) {
+            this.width = shape.width;
+            this.height = shape.height;
+            this.originX = shape.origin.x;
+            this.originY = shape.origin.y;
+            this.pixels = new long[(width * height + Long.SIZE - 1) / Long.SIZE];
+            int n = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++, n++) {
+                    if (shape.isSet(x, y)) {
+                        pixels[n >>> 6] |= 1L << n;
+                    }
+                }
+            }
+            this.hashCode = Objects.hash(width, height, originX, originY, Arrays.hashCode(pixels));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Content that && width == that.width && height == that.height
+                    && originX == that.originX && originY == that.originY && Arrays.equals(pixels, that.pixels);
+        }
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
     
     /**
      * Encode a bitmap shape by going to a corner and sweeping back-and-forth across the image.
@@ -362,4 +496,39 @@ public class BitmapShape implements Shape {
             }
         }
     }
+
+    private class GridView extends AbstractList<List<Boolean>> {
+        @Override
+        public List<Boolean> get(int y) {
+            Objects.checkIndex(y, height);
+            return new RowView(y);
+        }
+        @Override
+        public int size() {
+            return height;
+        }
+    }
+
+    private class RowView extends AbstractList<Boolean> {
+        private final int y;
+
+        private RowView(int y) {
+            this.y = y;
+        }
+        @Override
+        public Boolean get(int x) {
+            Objects.checkIndex(x, width);
+            return isSet(x, y);
+        }
+        @Override
+        public Boolean set(int x, Boolean pixel) {
+            Boolean old = get(x);
+            BitmapShape.this.set(x, y, pixel);
+            return old;
+        }
+        @Override
+        public int size() {
+            return width;
+        }
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.shapes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Re-encode the bitmap shapes of a shape table with {@link BeamSearchVectorization}, keeping whichever
+ * of the search or the {@link BitmapShape#toVector()} heuristics is shorter. Shapes are searched in
+ * parallel, each with its own time budget (or a fixed beam width for repeatable results). Vector shapes
+ * are kept exactly as written.
+ */
+public class ShapeTableOptimizer {
+    public static final Duration DEFAULT_BUDGET = Duration.ofMillis(250);
+
+    private Duration budget = DEFAULT_BUDGET;
+    private Integer width;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Time allowed for searching each shape. */
+    public ShapeTableOptimizer budget(Duration budget) {
+        this.budget = Objects.requireNonNull(budget);
+        return this;
+    }
+    /** Search each shape once with this beam width instead of a time budget, so the result is repeatable. */
+    public ShapeTableOptimizer width(int width) {
+        if (width < 1 || width > BeamSearchVectorization.MAX_WIDTH) {
+            throw new IllegalArgumentException(String.format("Beam width must be 1 to %d: %d",
+                    BeamSearchVectorization.MAX_WIDTH, width));
+        }
+        this.width = width;
+        return this;
+    }
+    /** Number of shapes searched at the same time. */
+    public ShapeTableOptimizer parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public Result optimize(ShapeTable shapeTable) {
+        Objects.requireNonNull(shapeTable);
+        List<Callable<Outcome>> tasks = new ArrayList<>();
+        for (int i = 0; i < shapeTable.shapes.size(); i++) {
+            int number = i + 1;
+            Shape shape = shapeTable.shapes.get(i);
+            tasks.add(() -> optimize(number, shape));
+        }
+        ShapeTable optimized = new ShapeTable();
+        List<ShapeResult> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            for (Future<Outcome> future : executor.invokeAll(tasks)) {
+                Outcome outcome = future.get();
+                optimized.shapes.add(outcome.shape());
+                results.add(outcome.result());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while optimizing shape table", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to optimize shape table: " + e.getCause().getMessage(), e.getCause());
+        }
+        return new Result(optimized, results);
+    }
+
+    private Outcome optimize(int number, Shape shape) {
+        VectorShape heuristic = shape.toVector();
+        int heuristicBytes = heuristic.encodedLength();
+        if (!(shape instanceof BitmapShape bitmapShape)) {
+            return new Outcome(shape, new ShapeResult(number, shape.getLabel(), heuristicBytes, heuristicBytes));
+        }
+        BeamSearchVectorization searcher = width == null
+                ? new BeamSearchVectorization(bitmapShape, budget)
+                : new BeamSearchVectorization(bitmapShape, width);
+        VectorShape search = searcher.get();
+        VectorShape best = search.encodedLength() < heuristicBytes ? search : heuristic;
+        VectorShape vectorShape = new VectorShape(shape.getLabel());
+        vectorShape.vectors.addAll(best.vectors);
+        return new Outcome(vectorShape, new ShapeResult(number, shape.getLabel(), heuristicBytes, best.encodedLength()));
+    }
+
+    private record Outcome(Shape shape, ShapeResult result) {}
+
+    /** Encoded size of one shape (including the terminating zero byte) before and after the search. */
+    public record ShapeResult(int number, String label, int heuristicBytes, int bytes) {
+        public int savedBytes() {
+            return heuristicBytes - bytes;
+        }
+        @Override
+        public String toString() {
+            return String.format("#%d%s: %d bytes, was %d (saved %d)", number,
+                    label == null ? "" : " " + label, bytes, heuristicBytes, savedBytes());
+        }
+    }
+
+    /** The re-encoded shape table (all vector shapes) plus the per-shape sizes. */
+    public record Result(ShapeTable shapeTable, List<ShapeResult> shapes) {
+        public int heuristicBytes() {
+            return shapes.stream().mapToInt(ShapeResult::heuristicBytes).sum();
+        }
+        public int bytes() {
+            return shapes.stream().mapToInt(ShapeResult::bytes).sum();
+        }
+        public int savedBytes() {
+            return heuristicBytes() - bytes();
+        }
+        @Override
+        public String toString() {
+            return String.format("%d shapes: %d bytes, was %d (saved %d)", shapes.size(), bytes(),
+                    heuristicBytes(), savedBytes());
+        }
+    }
+}
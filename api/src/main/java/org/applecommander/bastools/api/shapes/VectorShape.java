@@ -17,14 +17,12 @@
  */
 package org.applecommander.bastools.api.shapes;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Queue;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -83,9 +81,99 @@ public class VectorShape implements Shape {
 	
 	/** 
 	 * Optimize the vectors by removing useless vectors or replacing a series with a shorter series.
-	 * At this point, everything is based off of a regex with a potential modification. 
+	 * The rules are those of {@link #optimizeWithRegex()}, applied in the same order and to the same
+	 * fixed point, but as in-place scans over the vector ordinals.
 	 */
 	public VectorShape optimize() {
+	    byte[] work = new byte[vectors.size()];
+	    for (int i=0; i<work.length; i++) {
+	        work[i] = (byte)vectors.get(i).ordinal();
+	    }
+	    int length = work.length;
+	    int oldLength;
+	    do {
+	        oldLength = length;
+	        // Unused moves (left followed by a right with no plotting in between, for instance).
+	        length = removePair(work, length, L, VERTICAL, R);
+	        length = removePair(work, length, R, VERTICAL, L);
+	        length = removePair(work, length, U, HORIZONTAL, D);
+	        length = removePair(work, length, D, HORIZONTAL, U);
+	        // These are plot/move combinations, such as LEFT>up>right that can be replaced by just UP.
+	        length = replaceWithPlot(work, length, PLOT | L, VERTICAL, R);
+	        length = replaceWithPlot(work, length, PLOT | R, VERTICAL, L);
+	        length = replaceWithPlot(work, length, PLOT | U, HORIZONTAL, D);
+	        length = replaceWithPlot(work, length, PLOT | D, HORIZONTAL, U);
+	        // Base assumption is that any tail moves can be removed as they don't lead to a plot.
+	        while (length > 0 && (work[length-1] & PLOT) == 0) {
+	            length--;
+	        }
+	        // Every rule shortens the vectors, so an unchanged length means nothing matched
+	    } while (length != oldLength);
+	    
+	    VectorShape newShape = new VectorShape();
+	    VectorCommand[] commands = VectorCommand.values();
+	    for (int i=0; i<length; i++) {
+	        newShape.vectors.add(commands[work[i]]);
+	    }
+	    return newShape;
+	}
+	
+	/** Move ordinals (see {@link VectorCommand}) and the bit that turns a move into a plot. */
+	private static final int U = 0, R = 1, D = 2, L = 3, PLOT = 0b100;
+	/** Move up or down. */
+	private static final int VERTICAL = 0;
+	/** Move right or left. */
+	private static final int HORIZONTAL = 1;
+	
+	private static boolean isMove(byte vector, int direction) {
+	    return (vector & PLOT) == 0 && (vector & 1) == direction;
+	}
+	
+	/** 
+	 * Equivalent of a global "{@code a([moves]*)b}" to "{@code $1}" replacement: drop a move followed by its
+	 * opposite when only moves in the other direction are between them. Answers the new length.
+	 */
+	private static int removePair(byte[] work, int length, int first, int between, int last) {
+	    int w = 0;
+	    int r = 0;
+	    while (r < length) {
+	        if (work[r] == first) {
+	            int k = r + 1;
+	            while (k < length && isMove(work[k], between)) k++;
+	            if (k < length && work[k] == last) {
+	                System.arraycopy(work, r + 1, work, w, k - r - 1);
+	                w += k - r - 1;
+	                r = k + 1;
+	                continue;
+	            }
+	        }
+	        work[w++] = work[r++];
+	    }
+	    return w;
+	}
+	
+	/** 
+	 * Equivalent of a global "{@code A([moves])b}" to "{@code PLOT($1)}" replacement: a plot, one move and
+	 * the opposite of the plot becomes a single plot. Answers the new length.
+	 */
+	private static int replaceWithPlot(byte[] work, int length, int first, int between, int last) {
+	    int w = 0;
+	    int r = 0;
+	    while (r < length) {
+	        if (work[r] == first && r + 2 < length && isMove(work[r+1], between) && work[r+2] == last) {
+	            work[w++] = (byte)(work[r+1] | PLOT);
+	            r += 3;
+	        } else {
+	            work[w++] = work[r++];
+	        }
+	    }
+	    return w;
+	}
+	
+	/** 
+	 * The original regex based implementation of {@link #optimize()}; kept as the reference for the rules.
+	 */
+	public VectorShape optimizeWithRegex() {
 	    String commands = toShortCommands();
 	    Function<String,String> opts =
 	            // Unused moves (left followed by a right with no plotting in between, for instance).
@@ -200,41 +288,96 @@ public class VectorShape implements Shape {
 	}
 	
 	public byte[] toBytes() {
-	    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-	    LinkedList<VectorCommand> work = new LinkedList<>(vectors);
-	    while (!work.isEmpty()) {
-	        VectorCommand vector1 = work.remove();
-            int section1 = vector1.ordinal();
-	        VectorCommand vector2 = work.poll();
-            int section2 = Optional.ofNullable(vector2).map(VectorCommand::ordinal).orElse(0);
-            VectorCommand vector3 = work.poll();
-            // Remove all invalid encodings 100, 101, 110, 111, and 000.
-            if (vector3 != null && (vector3.plot || vector3 == VectorCommand.MOVE_UP)) {
-                work.addFirst(vector3);
-                vector3 = null;
-            }
-            int section3 = Optional.ofNullable(vector3).map(VectorCommand::ordinal).orElse(0);
-            if (section3 == 0 && section2 == 0 && !work.isEmpty()) {
-                vector3 = VectorCommand.MOVE_LEFT;
-                section3 = vector3.ordinal();
-                // If we have a series of MOVE_UP, we'll end up with a "uul", "rul", "rul", etc.
-                // It can be compressed a bit by stretching that right out a bit to get "uul", "uur", "uul, "uur", etc.
-                int moveUpCount = 0;
-                for (VectorCommand test : work) {
-                    if (test == VectorCommand.MOVE_UP) {
-                        moveUpCount += 1;
-                    } else {
-                        break;
-                    }
-                }
-                work.add(Math.min(moveUpCount,2), VectorCommand.MOVE_RIGHT);
-            }
-            outputStream.write(section3 << 6 | section2 << 3 | section1);
+	    int[] work = ordinals();
+	    // Every byte but the terminator takes at least one vector
+	    byte[] data = new byte[work.length + 1];
+	    int length = new Encoder(work).encode(data);
+	    return Arrays.copyOf(data, length);
+	}
+	
+	/** The number of bytes {@link #toBytes()} would produce, without building the byte array. */
+	public int encodedLength() {
+	    return new Encoder(ordinals()).encode(null);
+	}
+	
+	private int[] ordinals() {
+	    int[] work = new int[vectors.size()];
+	    for (int i=0; i<work.length; i++) {
+	        work[i] = vectors.get(i).ordinal();
 	    }
-	    outputStream.write(0);
-	    return outputStream.toByteArray();
+	    return work;
 	}
 	
+	/**
+	 * Packs vector ordinals into shape bytes. The vectors still to encode are a few pushed back or
+	 * inserted vectors ({@code head}) followed by the rest of the input array.
+	 */
+	private static class Encoder {
+	    private static final int NONE = -1;
+	    private final int[] vectors;
+	    private int position;
+	    private final int[] head = new int[8];
+	    private int headCount;
+	    
+	    private Encoder(int[] vectors) {
+	        this.vectors = vectors;
+	    }
+	    
+	    /** Encode into {@code data}, or just count the bytes when {@code data} is null. Answers the length. */
+	    private int encode(byte[] data) {
+	        int length = 0;
+	        while (remaining() > 0) {
+	            int section1 = poll();
+	            int section2 = Math.max(0, poll());
+	            int vector3 = poll();
+	            // Remove all invalid encodings 100, 101, 110, 111, and 000.
+	            if (vector3 != NONE && (vector3 == U || (vector3 & PLOT) != 0)) {
+	                insert(0, vector3);
+	                vector3 = NONE;
+	            }
+	            int section3 = Math.max(0, vector3);
+	            if (section3 == 0 && section2 == 0 && remaining() > 0) {
+	                section3 = L;
+	                // If we have a series of MOVE_UP, we'll end up with a "uul", "rul", "rul", etc.
+	                // It can be compressed a bit by stretching that right out a bit to get "uul", "uur", "uul, "uur", etc.
+	                int moveUpCount = 0;
+	                while (moveUpCount < 2 && moveUpCount < remaining() && get(moveUpCount) == U) {
+	                    moveUpCount += 1;
+	                }
+	                insert(moveUpCount, R);
+	            }
+	            if (data != null) data[length] = (byte)(section3 << 6 | section2 << 3 | section1);
+	            length++;
+	        }
+	        if (data != null) data[length] = 0;
+	        return length + 1;
+	    }
+	    
+	    private int remaining() {
+	        return headCount + vectors.length - position;
+	    }
+	    private int get(int index) {
+	        return index < headCount ? head[index] : vectors[position + index - headCount];
+	    }
+	    /** Remove the next vector; answers {@code NONE} when there are no more. */
+	    private int poll() {
+	        if (headCount > 0) {
+	            int vector = head[0];
+	            headCount--;
+	            System.arraycopy(head, 1, head, 0, headCount);
+	            return vector;
+	        }
+	        return position < vectors.length ? vectors[position++] : NONE;
+	    }
+	    private void insert(int index, int vector) {
+	        while (headCount < index) {
+	            head[headCount++] = vectors[position++];
+	        }
+	        System.arraycopy(head, index, head, index + 1, headCount - index);
+	        head[index] = vector;
+	        headCount++;
+	    }
+	}
 	@Override
 	public boolean isEmpty() {
 	    return vectors.isEmpty();
@@ -247,26 +390,30 @@ public class VectorShape implements Shape {
 
 	@Override
 	public BitmapShape toBitmap() {
-	    BitmapShape shape = new BitmapShape();
-	    
+	    // Size the bitmap up front; it always includes the row and column of the origin or above/left of it
+	    int minX = 0, maxX = -1, minY = 0, maxY = -1;
 	    int x = 0;
 	    int y = 0;
 	    for (VectorCommand command : vectors) {
 	        if (command.plot) {
-                while (y < 0) {
-                    shape.insertRow();
-                    y += 1;
-                } 
-                while (y >= shape.getHeight()) {
-                    shape.addRow();
-                }
-	            while (x < 0) {
-	                shape.insertColumn();
-	                x += 1;
-	            } 
-	            while (x >= shape.getWidth()) {
-	                shape.addColumn();
-	            }
+	            minX = Math.min(minX, x);
+	            maxX = Math.max(maxX, x);
+	            minY = Math.min(minY, y);
+	            maxY = Math.max(maxY, y);
+	        }
+	        x += command.xmove;
+	        y += command.ymove;
+	    }
+	    if (maxX < minX || maxY < minY) {
+	        return new BitmapShape();
+	    }
+	    BitmapShape shape = new BitmapShape(maxY - minY + 1, maxX - minX + 1);
+	    shape.origin.setLocation(-minX, -minY);
+	    
+	    x = -minX;
+	    y = -minY;
+	    for (VectorCommand command : vectors) {
+	        if (command.plot) {
 	            shape.plot(x,y);
 	        }
 	        x += command.xmove;
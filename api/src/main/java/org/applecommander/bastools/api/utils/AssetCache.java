@@ -0,0 +1,201 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * A size-bounded, least-recently-used cache of values derived from input files such as the
+ * binaries pulled in by {@code $embed} and the shape tables generated by {@code $shape}.
+ * Entries are keyed by kind and absolute path and are only reused while the file size,
+ * modification time (at whatever precision the file system keeps) and file key are unchanged.
+ * Cached values are shared and must not be modified.  All methods are safe to call from
+ * concurrent compiles.
+ * <p/>
+ * Compiles only use a cache when they ask for one; see {@code Configuration.Builder.assetCache}.
+ */
+public class AssetCache {
+    /** Default capacity of the shared cache, in (approximate) bytes. */
+    public static final long DEFAULT_CAPACITY = 16 * 1024 * 1024;
+    private static final AssetCache SHARED = new AssetCache(DEFAULT_CAPACITY);
+    private static final AssetCache NONE = new AssetCache(0);
+
+    private final long capacity;
+    private final Map<Key,Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** A cache shared by the compiles of a long running process, such as a batch or the compile server. */
+    public static AssetCache shared() {
+        return SHARED;
+    }
+
+    /** A cache that keeps nothing, so every request reads the file. */
+    public static AssetCache none() {
+        return NONE;
+    }
+
+    /** Create a cache holding up to capacity bytes; a capacity of 0 disables caching. */
+    public AssetCache(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /** Read all bytes of the given file, reusing a previous read when the file is unchanged. */
+    public byte[] readAllBytes(Path path) throws IOException {
+        return get("bin", path, Files::readAllBytes, bytes -> bytes.length);
+    }
+
+    /**
+     * Answer the value loaded from the given file, loading it when it is not cached or the file
+     * has changed since.  The kind separates different values derived from the same file and the
+     * weigher estimates the memory held by a value.  Concurrent requests for the same file share
+     * a single load.
+     */
+    public <T> T get(String kind, Path path, Loader<T> loader, ToLongFunction<T> weigher) throws IOException {
+        Objects.requireNonNull(kind);
+        Objects.requireNonNull(loader);
+        Objects.requireNonNull(weigher);
+        Path file = path.toAbsolutePath().normalize();
+        if (capacity == 0) {
+            misses.incrementAndGet();
+            return loader.load(file);
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Key key = new Key(kind, file);
+        long size = attributes.size();
+        FileTime modified = attributes.lastModifiedTime();
+        Object fileKey = attributes.fileKey();
+
+        Entry entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.modified.equals(modified)
+                    && Objects.equals(entry.fileKey, fileKey)) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                entry = new Entry(new FutureTask<>(() -> loader.load(file)), size, modified, fileKey);
+                Entry previous = entries.put(key, entry);
+                if (previous != null) weight -= previous.weight;
+                owner = true;
+            }
+        }
+        if (owner) {
+            entry.value.run();
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            T value = (T) entry.value.get();
+            if (owner) settle(key, entry, Math.max(1, weigher.applyAsLong(value)));
+            return value;
+        } catch (ExecutionException ex) {
+            if (owner) settle(key, entry, -1);
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof RuntimeException rt) throw rt;
+            throw new RuntimeException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + file, ex);
+        }
+    }
+
+    /** Account for a finished load; failed or oversized values are dropped from the cache. */
+    private synchronized void settle(Key key, Entry entry, long valueWeight) {
+        if (entries.get(key) != entry) return;
+        if (valueWeight < 0 || valueWeight > capacity) {
+            entries.remove(key);
+            return;
+        }
+        entry.weight = valueWeight;
+        weight += valueWeight;
+        evict();
+    }
+
+    /** Drop all entries; counters are left untouched. */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public Stats stats() {
+        synchronized (this) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), weight, capacity);
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > capacity && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** Load a value from a file. */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(Path path) throws IOException;
+    }
+
+    /** A snapshot of the cache counters. */
+    public record Stats(long hits, long misses, long evictions, int entries, long weight, long capacity) {
+        public long requests() {
+            return hits + misses;
+        }
+        @Override
+        public String toString() {
+            return String.format("%d hits, %d misses, %d evictions, %d entries (%d of %d bytes)",
+                    hits, misses, evictions, entries, weight, capacity);
+        }
+    }
+
+    private record Key(String kind, Path path) {}
+    private static class Entry {
+        final FutureTask<?> value;
+        final long size;
+        final FileTime modified;
+        final Object fileKey;
+        long weight;
+
+        Entry(FutureTask<?> value, long size, FileTime modified, Object fileKey) {
+            this.value = value;
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+        }
+    }
+}
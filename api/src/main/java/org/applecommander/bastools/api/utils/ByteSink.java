@@ -0,0 +1,238 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An unsynchronized, growable byte array. Unlike {@code ByteArrayOutputStream}, bytes that
+ * have already been written can be patched in place and the tail can be discarded, which
+ * allows a header to be reserved and filled in once the content length is known.
+ * <p>
+ * Large arrays handed over with {@link #writeShared(byte[])} are referenced rather than
+ * copied, and are only gathered into place by {@link #toByteArray()} or {@code writeTo}.
+ */
+public class ByteSink extends OutputStream {
+    /** Arrays shorter than this are simply copied by {@link #writeShared(byte[])}. */
+    public static final int SHARE_THRESHOLD = 512;
+    private byte[] buf;
+    /** Bytes held in buf. */
+    private int count;
+    /** Logical size, including shared slices. */
+    private int size;
+    private final List<Slice> slices = new ArrayList<>();
+
+    public ByteSink() {
+        this(1024);
+    }
+    public ByteSink(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+        size++;
+    }
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+        size += len;
+    }
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    /**
+     * Write an array that the caller promises not to modify.  Large arrays are referenced
+     * instead of copied.
+     */
+    public void writeShared(byte[] b) {
+        if (b.length < SHARE_THRESHOLD) {
+            write(b);
+            return;
+        }
+        slices.add(new Slice(count, b));
+        size += b.length;
+    }
+
+    /** Write a 16-bit value in little-endian order (the 6502 byte order). */
+    public void writeShort(int value) {
+        ensureCapacity(count + 2);
+        buf[count++] = (byte) value;
+        buf[count++] = (byte) (value >> 8);
+        size += 2;
+    }
+
+    /** Write text as single bytes; anything outside of 7-bit ASCII is written as UTF-8. */
+    public void writeText(CharSequence text) {
+        int len = text.length();
+        ensureCapacity(count + len);
+        for (int i = 0; i < len; i++) {
+            char ch = text.charAt(i);
+            if (ch >= 0x80) {
+                write(text.subSequence(i, len).toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buf[count++] = (byte) ch;
+            size++;
+        }
+    }
+
+    /** Skip over (reserve) the given number of bytes, returning the index of the first one. */
+    public int reserve(int reserved) {
+        ensureCapacity(count + reserved);
+        int index = size;
+        Arrays.fill(buf, count, count + reserved, (byte) 0);
+        count += reserved;
+        size += reserved;
+        return index;
+    }
+
+    /** Overwrite a 16-bit little-endian value at an index that has already been written. */
+    public void patchShort(int index, int value) {
+        if (index < 0 || index + 2 > size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int physical = physicalIndex(index, 2);
+        if (physical < 0) {
+            flatten();
+            physical = index;
+        }
+        buf[physical] = (byte) value;
+        buf[physical + 1] = (byte) (value >> 8);
+    }
+
+    /** Discard everything written after the given size. */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException(newSize);
+        }
+        int shared = size - count;
+        while (!slices.isEmpty()) {
+            Slice last = slices.getLast();
+            shared -= last.data.length;
+            int start = last.position + shared;
+            if (start < newSize) {
+                shared += last.data.length;
+                if (start + last.data.length > newSize) {
+                    flatten();
+                    shared = 0;
+                }
+                break;
+            }
+            slices.removeLast();
+        }
+        count = newSize - shared;
+        size = newSize;
+    }
+
+    public void reset() {
+        slices.clear();
+        count = 0;
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        if (slices.isEmpty()) {
+            return Arrays.copyOf(buf, count);
+        }
+        byte[] data = new byte[size];
+        int position = 0;
+        int offset = 0;
+        for (Slice slice : slices) {
+            System.arraycopy(buf, position, data, offset, slice.position - position);
+            offset += slice.position - position;
+            System.arraycopy(slice.data, 0, data, offset, slice.data.length);
+            offset += slice.data.length;
+            position = slice.position;
+        }
+        System.arraycopy(buf, position, data, offset, count - position);
+        return data;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        int position = 0;
+        for (Slice slice : slices) {
+            out.write(buf, position, slice.position - position);
+            out.write(slice.data);
+            position = slice.position;
+        }
+        out.write(buf, position, count - position);
+    }
+
+    /** Write everything to a channel with a single gathering write (repeated until complete). */
+    public void writeTo(GatheringByteChannel channel) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        int position = 0;
+        for (Slice slice : slices) {
+            buffers.add(ByteBuffer.wrap(buf, position, slice.position - position));
+            buffers.add(ByteBuffer.wrap(slice.data));
+            position = slice.position;
+        }
+        buffers.add(ByteBuffer.wrap(buf, position, count - position));
+        ByteBuffer[] array = buffers.toArray(ByteBuffer[]::new);
+        long remaining = size;
+        while (remaining > 0) {
+            remaining -= channel.write(array);
+        }
+    }
+
+    /** Map a logical index to buf, or -1 if the range overlaps a shared slice. */
+    private int physicalIndex(int index, int length) {
+        int shared = 0;
+        for (Slice slice : slices) {
+            int start = slice.position + shared;
+            if (index + length <= start) break;
+            if (index < start + slice.data.length) return -1;
+            shared += slice.data.length;
+        }
+        return index - shared;
+    }
+
+    /** Copy all shared slices into buf. */
+    private void flatten() {
+        byte[] data = toByteArray();
+        buf = Arrays.copyOf(data, Math.max(16, data.length * 2));
+        count = size;
+        slices.clear();
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(minCapacity, buf.length * 2));
+        }
+    }
+
+    private record Slice(int position, byte[] data) {}
+}
@@ -0,0 +1,94 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A pre-built, case-insensitive lookup table. Keys compare the same way as
+ * {@code String#equalsIgnoreCase(String)} and the first value registered for a key wins.
+ * Single ASCII characters (the operators and syntax characters) are looked up without
+ * allocating.
+ */
+public class CaseInsensitiveIndex<V> {
+    private final Map<String,V> map = new HashMap<>();
+    private final Object[] ascii = new Object[128];
+    private final SortedSet<Integer> lengths = new TreeSet<>();
+
+    public CaseInsensitiveIndex<V> add(String key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        if (map.putIfAbsent(fold(key), value) == null) {
+            lengths.add(key.length());
+            if (key.length() == 1 && key.charAt(0) < ascii.length) {
+                // Store every case variant so the single character lookup needs no folding
+                for (char ch = 0; ch < ascii.length; ch++) {
+                    if (fold(ch) == fold(key.charAt(0)) && ascii[ch] == null) {
+                        ascii[ch] = value;
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    public Optional<V> find(String key) {
+        Objects.requireNonNull(key);
+        if (key.length() == 1 && key.charAt(0) < ascii.length) {
+            return find(key.charAt(0));
+        }
+        return Optional.ofNullable(map.get(fold(key)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<V> find(char ch) {
+        if (ch < ascii.length) {
+            return Optional.ofNullable((V) ascii[ch]);
+        }
+        return Optional.ofNullable(map.get(String.valueOf(fold(ch))));
+    }
+
+    /** The distinct key lengths, shortest first. Useful when matching keys against a region of text. */
+    public SortedSet<Integer> lengths() {
+        return Collections.unmodifiableSortedSet(lengths);
+    }
+
+    /** Fold a key into a canonical case. This matches the comparison done by {@code String#equalsIgnoreCase}. */
+    static String fold(String key) {
+        for (int i=0; i<key.length(); i++) {
+            char ch = key.charAt(i);
+            if (fold(ch) != ch) {
+                char[] chars = key.toCharArray();
+                for (int j=i; j<chars.length; j++) {
+                    chars[j] = fold(chars[j]);
+                }
+                return new String(chars);
+            }
+        }
+        return key;
+    }
+    static char fold(char ch) {
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A space-insensitive trie of Applesoft keywords. This allows a keyword to be located with a
+ * single pass over the source line instead of trying every keyword in turn.
+ * <p>
+ * When more than one keyword matches (such as "ON" and "ONERR"), the keyword declared first
+ * in {@code ApplesoftKeyword} wins. This mirrors the order in which the Applesoft ROM searches
+ * its keyword table.
+ */
+public class KeywordTrie {
+    private static final KeywordTrie APPLESOFT = new KeywordTrie(ApplesoftKeyword.values());
+
+    private final Node root = new Node();
+
+    /** The trie for all Applesoft keywords. */
+    public static KeywordTrie applesoft() {
+        return APPLESOFT;
+    }
+
+    public KeywordTrie(ApplesoftKeyword... keywords) {
+        for (ApplesoftKeyword kw : keywords) {
+            Node node = root;
+            for (int i=0; i<kw.text.length(); i++) {
+                node = node.add(kw.text.charAt(i));
+            }
+            if (node.keyword == null || kw.ordinal() < node.keyword.ordinal()) {
+                node.keyword = kw;
+            }
+        }
+    }
+
+    /**
+     * Find the keyword starting at {@code base}. Spaces within the line are skipped. The length
+     * of the match includes any skipped spaces.
+     */
+    public Optional<Match> match(CharSequence line, int base) {
+        Objects.requireNonNull(line);
+        ApplesoftKeyword best = null;
+        int bestLength = 0;
+        Node node = root;
+        for (int i=base; i<line.length() && node.hasChildren(); i++) {
+            char ch = line.charAt(i);
+            if (ch == ' ') {
+                continue;
+            }
+            node = node.get(Character.toUpperCase(ch));
+            if (node == null) {
+                break;
+            }
+            if (node.keyword != null && (best == null || node.keyword.ordinal() < best.ordinal())) {
+                best = node.keyword;
+                bestLength = i - base + 1;
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(new Match(best, bestLength));
+    }
+
+    /** A matched keyword and the number of characters consumed from the source line. */
+    public record Match(ApplesoftKeyword keyword, int length) {}
+
+    private static class Node {
+        /** Keywords are plain ASCII, so a small array is sufficient for the children. */
+        private Node[] children;
+        private ApplesoftKeyword keyword;
+
+        Node get(char ch) {
+            return ch < children.length ? children[ch] : null;
+        }
+        Node add(char ch) {
+            if (children == null) {
+                children = new Node[128];
+            }
+            if (children[ch] == null) {
+                children[ch] = new Node();
+            }
+            return children[ch];
+        }
+        boolean hasChildren() {
+            return children != null;
+        }
+    }
+}
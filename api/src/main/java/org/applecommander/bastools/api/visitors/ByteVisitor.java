@@ -17,11 +17,12 @@
  */
 package org.applecommander.bastools.api.visitors;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.GatheringByteChannel;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Stack;
 import java.util.TreeMap;
 
 import org.applecommander.bastools.api.Configuration;
@@ -33,9 +34,15 @@ import org.applecommander.bastools.api.model.Line;
 import org.applecommander.bastools.api.model.Program;
 import org.applecommander.bastools.api.model.Statement;
 import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.utils.ByteSink;
 
+/**
+ * Generates the tokenized Applesoft program. Everything is written into a single
+ * {@link ByteSink}; the link pointer of each line is reserved up front and patched once
+ * the length of the line is known.
+ */
 public class ByteVisitor implements Visitor {
-	private final Stack<ByteArrayOutputStream> stack;
+	private final ByteSink sink;
 	private final Map<Integer,Integer> lineAddresses;
 	private final Configuration config;
 	private int address;
@@ -44,7 +51,7 @@ public class ByteVisitor implements Visitor {
 	public ByteVisitor(Configuration config) {
 		this.config = config;
 		this.address = config.startAddress;
-		this.stack = new Stack<>();
+		this.sink = new ByteSink();
 		this.lineAddresses = new TreeMap<>();
 	}
 	
@@ -56,9 +63,11 @@ public class ByteVisitor implements Visitor {
 	
 	/** A convenience method to get the length of a line. */
 	public int length(Line line) {
-		stack.push(new ByteArrayOutputStream());
+		int mark = sink.size();
 		line.accept(this);
-		return stack.pop().size();
+		int length = sink.size() - mark;
+		sink.truncate(mark);
+		return length;
 	}
 	
 	public Map<Integer, Integer> getLineAddresses() {
@@ -66,62 +75,60 @@ public class ByteVisitor implements Visitor {
 	}
 	
 	public byte[] getBytes() {
-		if (stack.size() != 1) {
-			throw new RuntimeException("Error in processing internal BASIC model!");
-		}
-		return stack.peek().toByteArray();
+		return sink.toByteArray();
+	}
+	/** Write the program without first copying it into a single array. */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		sink.writeTo(outputStream);
+	}
+	/** Write the program with a gathering write; embedded binaries are not copied. */
+	public void writeTo(GatheringByteChannel channel) throws IOException {
+		sink.writeTo(channel);
 	}
 	
 	@Override
 	public Program visit(Program program) {
-		stack.clear();
-		stack.push(new ByteArrayOutputStream());
+		sink.reset();
 		program.lines.forEach(line -> line.accept(this));
-		ByteArrayOutputStream os = stack.peek();
-		os.write(0x00);
-		os.write(0x00);
+		sink.writeShort(0x0000);
 		this.address += 2;
 		return program;
 	}
 	
 	@Override
 	public Line visit(Line line) {
-		try {
-			stack.push(new ByteArrayOutputStream());
-			boolean first = true;
-			for (Statement statement : line.statements) {
-				if (currentDirective != null) {
-					throw new RuntimeException("No statements are allowed after a directive!");
-				}
-				if (!first) {
-					stack.peek().write(':');
-				}
-				first = false;
-				statement.accept(this);
-			}
+		int start = sink.size();
+		int link = sink.reserve(2);
+		sink.writeShort(line.lineNumber);
+		boolean first = true;
+		for (Statement statement : line.statements) {
 			if (currentDirective != null) {
-			    // Need to force the last set of parameters to be processed. Yeah, stinky. :-)
-			    currentDirective.append(Token.eol(-1));
+				throw new RuntimeException("No statements are allowed after a directive!");
+			}
+			if (!first) {
+				sink.write(':');
+			}
+			first = false;
+			statement.accept(this);
+		}
+		if (currentDirective != null) {
+			try {
+				// Need to force the last set of parameters to be processed. Yeah, stinky. :-)
+				currentDirective.append(Token.eol(-1));
 				currentDirective.writeBytes(this.address+4, line);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			} finally {
 				currentDirective = null;
 			}
-
-			this.lineAddresses.put(line.lineNumber, this.address);
-			byte[] content = stack.pop().toByteArray();
-			int nextAddress = address + content.length + 5;
-			ByteArrayOutputStream os = stack.peek();
-			os.write(nextAddress);
-			os.write(nextAddress >> 8);
-			os.write(line.lineNumber);
-			os.write(line.lineNumber >> 8);
-			os.write(content);
-			os.write(0x00);
-			this.address = nextAddress;
-			return line;
-		} catch (IOException ex) {
-			// Hiding the IOException as ByteArrayOutputStream does not throw it
-			throw new RuntimeException(ex);
 		}
+		sink.write(0x00);
+
+		this.lineAddresses.put(line.lineNumber, this.address);
+		int nextAddress = address + sink.size() - start;
+		sink.patchShort(link, nextAddress);
+		this.address = nextAddress;
+		return line;
 	}
 
 	@Override
@@ -130,46 +137,40 @@ public class ByteVisitor implements Visitor {
 			currentDirective.append(token);
 			return token;
 		}
-		try {
-			ByteArrayOutputStream os = stack.peek();
-			switch (token.type()) {
-			case COMMENT:
-				os.write(ApplesoftKeyword.REM.code);
-				os.write(token.text().getBytes());
-				break;
-			case EOL:
-				os.write(0x00);
-				break;
-			case IDENT, DATA:
-				os.write(token.text().getBytes());
-				break;
-			case KEYWORD:
-				os.write(token.keyword().code);
-				break;
-			case DIRECTIVE:
-				currentDirective = Directives.find(token.text(), config, os);
-				break;
-			case NUMBER:
-                os.write(config.numberToString(token).getBytes());
-				break;
-            case STRING:
-				os.write('"');
-				os.write(token.text().getBytes());
-				os.write('"');
-				break;
-			case SYNTAX:
-				Optional<ApplesoftKeyword> opt = ApplesoftKeyword.find(token.text());
-				if (opt.isPresent()) {
-					os.write(opt.get().code);
-				} else {
-					os.write(token.text().getBytes());
-				}
-				break;
+		switch (token.type()) {
+		case COMMENT:
+			sink.write(ApplesoftKeyword.REM.code);
+			sink.writeText(token.text());
+			break;
+		case EOL:
+			sink.write(0x00);
+			break;
+		case IDENT, DATA:
+			sink.writeText(token.text());
+			break;
+		case KEYWORD:
+			sink.write(token.keyword().code);
+			break;
+		case DIRECTIVE:
+			currentDirective = Directives.find(token.text(), config, sink);
+			break;
+		case NUMBER:
+			sink.writeText(config.numberToString(token));
+			break;
+		case STRING:
+			sink.write('"');
+			sink.writeText(token.text());
+			sink.write('"');
+			break;
+		case SYNTAX:
+			Optional<ApplesoftKeyword> opt = ApplesoftKeyword.find(token.text());
+			if (opt.isPresent()) {
+				sink.write(opt.get().code);
+			} else {
+				sink.writeText(token.text());
 			}
-			return token;
-		} catch (IOException ex) {
-			// Hiding the IOException as ByteArrayOutputStream does not throw it
-			throw new RuntimeException(ex);
+			break;
 		}
+		return token;
 	}
 }
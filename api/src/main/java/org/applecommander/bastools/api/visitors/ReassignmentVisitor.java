@@ -77,17 +77,33 @@ public class ReassignmentVisitor implements Visitor {
 			Token newToken = t;
 			if (trigger || then) {
 				if (t.type() == Type.NUMBER && reassignments.containsKey(t.number().intValue())) {
-					newToken = Token.number(t.line(), reassignments.get(t.number().intValue()).doubleValue());
+					newToken = reassign(t, reassignments.get(t.number().intValue()));
 				}
 				then = false;
 			}
 			if (!trigger) {
-				trigger = t.keyword() == ApplesoftKeyword.GOSUB || t.keyword() == ApplesoftKeyword.GOTO
-                    || t.keyword() == ApplesoftKeyword.LIST || t.keyword() == ApplesoftKeyword.RUN;
+				trigger = isTrigger(t);
 				then = t.keyword() == ApplesoftKeyword.THEN;
 			}
 			newStatement.tokens.add(newToken);
 		}
 		return newStatement;
 	}
+	/** Indicates if this statement has any line numbers that could be reassigned. */
+	public static boolean mayReassign(Statement statement) {
+		for (Token t : statement.tokens) {
+			if (isTrigger(t) || t.keyword() == ApplesoftKeyword.THEN) {
+				return true;
+			}
+		}
+		return false;
+	}
+	private static boolean isTrigger(Token t) {
+		return t.keyword() == ApplesoftKeyword.GOSUB || t.keyword() == ApplesoftKeyword.GOTO
+			|| t.keyword() == ApplesoftKeyword.LIST || t.keyword() == ApplesoftKeyword.RUN;
+	}
+	/** Create the replacement for a line number token. */
+	protected Token reassign(Token token, Integer lineNumber) {
+		return Token.number(token.line(), lineNumber.doubleValue());
+	}
 }
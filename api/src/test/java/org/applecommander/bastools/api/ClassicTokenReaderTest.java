@@ -18,6 +18,7 @@
 package org.applecommander.bastools.api;
 
 import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.applecommander.bastools.api.model.Program;
 import org.applecommander.bastools.api.model.Token;
 import org.applecommander.bastools.api.model.Tokens;
 import org.junit.Test;
@@ -29,6 +30,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 public class ClassicTokenReaderTest {
@@ -391,6 +394,32 @@ public class ClassicTokenReaderTest {
                 .end());
     }
 
+    @Test
+    public void testLongComment() throws IOException {
+        testCode("10 REM THIS IS A LONG COMMENT: IT HAS GOTO 10 IN IT\n20 END",
+            Tokens.builder()
+                .number("10")
+                    .comment(" THIS IS A LONG COMMENT: IT HAS GOTO 10 IN IT")
+                    .nextLine()
+                .number("20")
+                    .keyword(ApplesoftKeyword.END)
+                .end());
+    }
+
+    @Test
+    public void testStreamingParse() {
+        ClassicTokenReader tokenReader = new ClassicTokenReader(new StringReader("""
+                10 TEXT:HOME
+                20 PRINT "HELLO"
+                30 GOTO 20
+                """));
+        Program program = new Parser(tokenReader).parse();
+        assertEquals(3, program.lines.size());
+        assertEquals(20, program.lines.get(1).lineNumber);
+        assertEquals(2, program.lines.getFirst().statements.size());
+        assertFalse(tokenReader.hasNext());
+    }
+
     public void testCode(String code, Token... expectedTokens) throws IOException {
         final Queue<Token> actualTokens = ClassicTokenReader.tokenize(new StringReader(code));
         final Token[] actualArray = actualTokens.toArray(new Token[0]);
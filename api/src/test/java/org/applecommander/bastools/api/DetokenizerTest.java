@@ -0,0 +1,133 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Queue;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.junit.Test;
+
+public class DetokenizerTest {
+    /** Every directive-free golden sample must detokenize and tokenize back to exactly the same bytes. */
+    @Test
+    public void testRoundTripSamples() throws IOException {
+        List<String> entries;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/byte-visitor-golden.txt"), StandardCharsets.UTF_8))) {
+            entries = reader.lines().filter(s -> !s.isBlank() && !s.startsWith("#")).toList();
+        }
+        int count = 0;
+        for (String entry : entries) {
+            String[] parts = entry.split(" ");
+            File source = new File(parts[0]);
+            if (Files.readString(source.toPath()).toLowerCase().matches("(?s).*\\$(embed|shape|hex).*")) {
+                continue;
+            }
+            boolean classic = "classic".equals(parts[1]);
+            Queue<Token> tokens = classic ? ClassicTokenReader.tokenize(source) : ModernTokenReader.tokenize(source);
+            Program program = new Parser(tokens).parse();
+            Configuration config = Configuration.builder().sourceFile(source).preserveNumbers(true).build();
+            byte[] expected = Visitors.byteVisitor(config).dump(program);
+
+            Program detokenized = new Detokenizer(ByteBuffer.wrap(expected)).readAll();
+            assertEquals(entry, program.lines.size(), detokenized.lines.size());
+            assertArrayEquals(entry, expected, Visitors.byteVisitor(config).dump(detokenized));
+            count++;
+        }
+        assertFalse(count == 0);
+    }
+
+    @Test
+    public void testListing() {
+        byte[] data = tokenize(0x801, """
+                10 PRINT "HELLO, WORLD":GOTO 10
+                20 REM IT'S ALL GOOD
+                30 DATA 1,"A:B",C:X=1.5E3
+                """);
+        Detokenizer detokenizer = new Detokenizer(ByteBuffer.wrap(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Configuration config = Configuration.builder().sourceFile(new File("x")).preserveNumbers(true).build();
+        Visitor printer = Visitors.printBuilder(config).printStream(new PrintStream(out)).build();
+        detokenizer.forEachRemaining(line -> line.accept(printer));
+        assertEquals(0x801, detokenizer.getStartAddress());
+        assertEquals("""
+                10  PRINT "HELLO, WORLD": GOTO 10
+                20  REM IT'S ALL GOOD
+                30  DATA 1,"A:B",C:X = 1.5E3
+                """, out.toString());
+    }
+
+    /** Applesoft never stores spaces outside of strings, REM and DATA; any others are dropped. */
+    @Test
+    public void testSpacesOutsideTextAreDropped() {
+        byte[] data = { 0x0e, 0x08, 0x0a, 0x00, (byte) 0xba, ' ', 'A', ' ', ';', '"', ' ', '"', 0x00, 0x00, 0x00 };
+        Program program = new Detokenizer(ByteBuffer.wrap(data)).readAll();
+        assertEquals(List.of(ApplesoftKeyword.PRINT.text, "A", ";", " "),
+                program.lines.getFirst().statements.getFirst().tokens.stream()
+                        .map(t -> t.keyword() != null ? t.keyword().text : t.text() != null ? t.text() : String.valueOf(t.number()))
+                        .toList());
+        Configuration config = Configuration.builder().sourceFile(new File("x")).preserveNumbers(true).build();
+        assertArrayEquals(new byte[] { 0x0c, 0x08, 0x0a, 0x00, (byte) 0xba, 'A', ';', '"', ' ', '"', 0x00, 0x00, 0x00 },
+                Visitors.byteVisitor(config).dump(program));
+    }
+
+    @Test
+    public void testStartAddressIsDiscovered() {
+        byte[] data = tokenize(0x4000, "10 HOME\n20 END\n");
+        Detokenizer detokenizer = new Detokenizer(ByteBuffer.wrap(data));
+        Program program = detokenizer.readAll();
+        assertEquals(0x4000, detokenizer.getStartAddress());
+        assertEquals(2, program.lines.size());
+        assertEquals(ApplesoftKeyword.END, program.lines.get(1).statements.getFirst().tokens.getFirst().keyword());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testBrokenLink() {
+        byte[] data = tokenize(0x801, "10 HOME\n20 END\n");
+        data[0] = (byte) 0xff;
+        new Detokenizer(ByteBuffer.wrap(data), 0x801).readAll();
+    }
+
+    private static byte[] tokenize(int address, String source) {
+        try {
+            Program program = new Parser(ModernTokenReader.tokenize(new ByteArrayInputStream(source.getBytes()))).parse();
+            Configuration config = Configuration.builder().sourceFile(new File("x"))
+                    .startAddress(address).preserveNumbers(true).build();
+            return Visitors.byteVisitor(config).dump(program);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
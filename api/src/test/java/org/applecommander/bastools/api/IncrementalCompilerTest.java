@@ -0,0 +1,154 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.visitors.ByteVisitor;
+import org.junit.Test;
+
+public class IncrementalCompilerTest {
+    /** Incremental output must match a full build for every unoptimized golden sample, cold and warm. */
+    @Test
+    public void testMatchesFullBuild() throws IOException {
+        List<String> entries;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/byte-visitor-golden.txt"), StandardCharsets.UTF_8))) {
+            entries = reader.lines().filter(s -> !s.isBlank() && !s.startsWith("#") && s.contains(" plain ")).toList();
+        }
+        assertFalse(entries.isEmpty());
+        for (String entry : entries) {
+            String[] parts = entry.split(" ");
+            File source = new File(parts[0]);
+            boolean classic = "classic".equals(parts[1]);
+            Configuration config = Configuration.builder().sourceFile(source).preserveNumbers(classic).build();
+
+            Queue<Token> tokens = classic ? ClassicTokenReader.tokenize(source) : ModernTokenReader.tokenize(source);
+            Program program = new Parser(tokens).parse();
+            ByteVisitor byteVisitor = Visitors.byteVisitor(config);
+            byte[] expected = byteVisitor.dump(program);
+
+            IncrementalCompiler compiler = new IncrementalCompiler(config, classic);
+            IncrementalCompiler.Result cold = compiler.compile();
+            assertArrayEquals(entry, expected, cold.bytes());
+            assertEquals(entry, byteVisitor.getLineAddresses(), cold.lineAddresses());
+            assertEquals(entry, 0, cold.reused());
+
+            IncrementalCompiler.Result warm = compiler.compile();
+            assertArrayEquals(entry, expected, warm.bytes());
+            assertEquals(entry, byteVisitor.getLineAddresses(), warm.lineAddresses());
+        }
+        // Directives that are followed by another line refer to it
+        File resources = new File("../tools/bt/src/test/resources/directives.bas");
+        Configuration config = Configuration.builder().sourceFile(resources).build();
+        for (String source : DIRECTIVE_SOURCES) {
+            IncrementalCompiler compiler = new IncrementalCompiler(config, false);
+            assertArrayEquals(source, fullBuild(config, source), compiler.compile(source).bytes());
+            assertArrayEquals(source, fullBuild(config, source), compiler.compile(source).bytes());
+        }
+    }
+
+    @Test
+    public void testOnlyChangedLinesAreCompiled() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(new File("x")).build();
+        IncrementalCompiler compiler = new IncrementalCompiler(config, false);
+        IncrementalCompiler.Result first = compiler.compile(SOURCE);
+        assertEquals(4, first.compiled());
+
+        String changed = SOURCE.replace("GOTO 10", "GOTO 30");
+        IncrementalCompiler.Result second = compiler.compile(changed);
+        assertEquals(3, second.reused());
+        assertEquals(1, second.compiled());
+        assertArrayEquals(fullBuild(config, changed), second.bytes());
+
+        // Growing a line moves everything after it
+        String longer = changed.replace("HELLO", "HELLO, WORLD");
+        IncrementalCompiler.Result third = compiler.compile(longer);
+        assertEquals(1, third.compiled());
+        assertArrayEquals(fullBuild(config, longer), third.bytes());
+        assertEquals(first.program().lines.size(), third.program().lines.size());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(new File("x")).build();
+        IncrementalCompiler compiler = new IncrementalCompiler(config, false);
+        byte[] expected = compiler.compile(SOURCE).bytes();
+        File file = File.createTempFile("incremental", ".cache");
+        try {
+            compiler.save(file);
+            IncrementalCompiler warm = new IncrementalCompiler(config, false);
+            assertTrue(warm.load(file));
+            IncrementalCompiler.Result result = warm.compile(SOURCE);
+            assertEquals(0, result.compiled());
+            assertArrayEquals(expected, result.bytes());
+            // Different settings cannot share the cache
+            assertFalse(new IncrementalCompiler(config, true).load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        assertEquals(List.of("' header\n", "10 A = 1 : \\\n  20\n", "30 PRINT A\n' trailing\n", "40 END"),
+                IncrementalCompiler.split("' header\n10 A = 1 : \\\n  20\n30 PRINT A\n' trailing\n40 END"));
+    }
+
+    private static final String SOURCE = """
+            10 PRINT "HELLO"
+            20 REM STUFF
+            30 FOR I = 1 TO 10 : PRINT I : NEXT I
+            40 GOTO 10
+            """;
+
+    private static final List<String> DIRECTIVE_SOURCES = List.of(
+            """
+            10 $embed file="embed-rts.bin", moveto="$300"
+            20 PRINT "AFTER"
+            """,
+            """
+            5 HGR : PRINT "BEFORE"
+            10 $embed file="embed-rts.bin", moveto="$300"
+            20 CALL 768
+            """,
+            """
+            10 HGR
+            100 $shape src="mouse.st", init=yes, assign=(m="mouse"), address=ad
+            110 DRAW M AT 10,10
+            """);
+
+    private static byte[] fullBuild(Configuration config, String source) throws IOException {
+        Program program = new Parser(ModernTokenReader.tokenize(new StringReader(source))).parse();
+        return Visitors.byteVisitor(config).dump(program);
+    }
+}
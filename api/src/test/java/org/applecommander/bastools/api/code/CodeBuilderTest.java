@@ -18,8 +18,12 @@
 package org.applecommander.bastools.api.code;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -57,4 +61,60 @@ public class CodeBuilderTest {
         
         assertArrayEquals(expected, builder.generate(0x801).toByteArray());
     }
+
+    @Test
+    public void testBinaryIsEmittedOnce() throws IOException {
+        AtomicInteger emits = new AtomicInteger();
+        CodeBuilder builder = new CodeBuilder();
+        CodeMark mark = new CodeMark();
+        builder.basic()
+               .CALL(mark)
+               .endLine()
+               .set(mark)
+               .add(state -> { if (state.isEmitting()) emits.incrementAndGet(); })
+               .addBinary(new byte[1000]);
+
+        assertEquals(1000 + 6, builder.generate(0x801).size());
+        assertEquals(1, emits.get());
+        // Mark found, "CALL 0" grows to "CALL 2055" moving the mark, settled, then emit
+        assertEquals(4, builder.getPassCount());
+    }
+
+    @Test
+    public void testOscillatingMarkIsCapped() throws IOException {
+        CodeBuilder builder = new CodeBuilder();
+        CodeMark mark = new CodeMark();
+        builder.add(state -> { if (mark.getAddress() == 0) state.write(new byte[3]); })
+               .set(mark)
+               .maxPasses(5);
+        try {
+            builder.generate(0);
+            fail("Expecting the oscillating mark to be reported");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Code generation did not settle after 5 passes"));
+        }
+    }
+
+    @Test
+    public void testShapeTablePageBoundaryIsExplained() throws IOException {
+        // Same prologue as the $shape directive; the table start flips between $08FE and $0900
+        final byte[] shapeTable = { 0x01, 0x00, 0x04, 0x00, 0x12, 0x3f, 0x20, 0x64, 0x2d, 0x15, 0x36, 0x1e, 0x07, 0x00 };
+        CodeBuilder builder = new CodeBuilder();
+        CodeMark shapeTableStart = new CodeMark();
+        builder.basic()
+               .POKEW(232, shapeTableStart).endStatement()
+               .ROT(0).endStatement()
+               .SCALE(1).endStatement()
+               .GOTO(20)
+               .endLine()
+               .set(shapeTableStart)
+               .addBinary(shapeTable);
+        try {
+            builder.generate(0x8e6);
+            fail("Expecting the page boundary to be reported");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("A circular pattern in a dynamic address was discovered!"));
+            assertTrue(ex.getMessage(), ex.getMessage().contains("stick a little bit of extra code"));
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ProgramTest {
+    @Test
+    public void testNavigation() {
+        Program program = program(10, 20, 30);
+        Line first = program.lines.get(0);
+        Line second = program.lines.get(1);
+        Line third = program.lines.get(2);
+
+        assertSame(second, first.nextLine().orElseThrow());
+        assertSame(third, second.nextLine().orElseThrow());
+        assertFalse(third.nextLine().isPresent());
+        assertSame(second, third.previousLine().orElseThrow());
+        assertFalse(first.previousLine().isPresent());
+        assertSame(second, program.findLine(20).orElseThrow());
+        assertFalse(program.findLine(25).isPresent());
+        assertEquals(-1, program.indexOf(new Line(20, program)));
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        Program program = program(10, 20, 30);
+        Line first = program.lines.getFirst();
+        Line added = new Line(15, program);
+        program.lines.add(1, added);
+        assertSame(added, first.nextLine().orElseThrow());
+        assertSame(added, program.findLine(15).orElseThrow());
+
+        Line replaced = new Line(5, program);
+        program.lines.set(0, replaced);
+        assertEquals(-1, program.indexOf(first));
+        assertSame(replaced, program.findLine(5).orElseThrow());
+        assertFalse(program.findLine(10).isPresent());
+
+        program.lines.subList(1, 2).set(0, first);
+        assertSame(first, replaced.nextLine().orElseThrow());
+        assertEquals(-1, program.indexOf(added));
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        Program program = program(IntStream.rangeClosed(1, 2000).map(n -> 100 + n * 10).toArray());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // Each change forces the readers below to race on rebuilding the index
+                program.lines.add(0, new Line(round, program));
+                List<Future<?>> readers = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    readers.add(executor.submit(() -> {
+                        for (int i = 0; i < program.lines.size(); i++) {
+                            Line line = program.lines.get(i);
+                            assertEquals(i, program.indexOf(line));
+                            assertSame(line, program.findLine(line.lineNumber).orElseThrow());
+                        }
+                    }));
+                }
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Program program(int... lineNumbers) {
+        Program program = new Program();
+        for (int lineNumber : lineNumbers) {
+            program.lines.add(new Line(lineNumber, program));
+        }
+        return program;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.optimizations;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.applecommander.bastools.api.ClassicTokenReader;
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.junit.Test;
+
+public class BaseVisitorTest {
+    @Test
+    public void testRemovedLinesAreRetargeted() throws IOException {
+        Program program = parse("""
+                10 GOTO 30
+                20 GOSUB 40: ON X GOTO 30,50
+                30 REM FIRST
+                40 REM SECOND
+                50 END
+                """);
+        Configuration config = Configuration.builder().sourceFile(new File("test.bas")).build();
+        program = program.accept(Optimization.REMOVE_REM_STATEMENTS.create(config));
+
+        assertEquals(3, program.lines.size());
+        assertEquals(50, program.lines.get(2).lineNumber);
+        assertEquals(50, number(program, 0, 0, 1));
+        assertEquals(50, number(program, 1, 0, 1));
+        assertEquals(50, number(program, 1, 1, 3));
+        assertEquals(50, number(program, 1, 1, 5));
+    }
+
+    private static Program parse(String source) throws IOException {
+        return new Parser(ClassicTokenReader.tokenize(new StringReader(source))).parse();
+    }
+
+    private static int number(Program program, int line, int statement, int token) {
+        Token t = program.lines.get(line).statements.get(statement).tokens.get(token);
+        return t.number().intValue();
+    }
+}
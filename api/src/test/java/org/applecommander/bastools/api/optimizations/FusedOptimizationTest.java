@@ -0,0 +1,94 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.optimizations;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.applecommander.bastools.api.ClassicTokenReader;
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Statement;
+import org.junit.Test;
+
+public class FusedOptimizationTest {
+    private static final String SOURCE = """
+            10 REM SETUP
+            20 LONGNAME = 1.50 : SHORT$ = "X"
+            30 REM
+            40 IF LONGNAME > 0.25 THEN 30
+            50 ON LONGNAME GOTO 10,30,60
+            60 REM
+            70 GOSUB 60 : PRINT SHORT$; LONGNAME
+            """;
+
+    @Test
+    public void testAllOptimizations() throws IOException {
+        assertSameAsSequential(List.of(Optimization.values()));
+    }
+
+    @Test
+    public void testShortenNumbersBeforeRemovingLines() throws IOException {
+        // Line numbers moved by the later stage should not be shortened
+        assertSameAsSequential(List.of(Optimization.SHORTEN_NUMBERS, Optimization.REMOVE_REM_STATEMENTS));
+        assertSameAsSequential(List.of(Optimization.REMOVE_REM_STATEMENTS, Optimization.SHORTEN_NUMBERS));
+    }
+
+    @Test
+    public void testRepeatedOptimization() throws IOException {
+        assertSameAsSequential(List.of(Optimization.SHORTEN_VARIABLE_NAMES, Optimization.REMOVE_EMPTY_STATEMENTS,
+                Optimization.SHORTEN_VARIABLE_NAMES));
+    }
+
+    private static void assertSameAsSequential(List<Optimization> optimizations) throws IOException {
+        Program expected = parse();
+        Configuration config = config();
+        for (Optimization optimization : optimizations) {
+            expected = expected.accept(optimization.create(config));
+        }
+        Program actual = parse().accept(Optimization.pipeline(config(), optimizations));
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static Program parse() throws IOException {
+        return new Parser(ClassicTokenReader.tokenize(new StringReader(SOURCE))).parse();
+    }
+
+    private static Configuration config() {
+        return Configuration.builder().sourceFile(new File("test.bas")).preserveNumbers(true).build();
+    }
+
+    private static String describe(Program program) {
+        StringBuilder sb = new StringBuilder();
+        for (Line line : program.lines) {
+            sb.append(line.lineNumber);
+            for (Statement statement : line.statements) {
+                sb.append(" : ").append(statement.tokens);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
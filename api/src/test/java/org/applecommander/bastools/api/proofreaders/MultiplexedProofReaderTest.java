@@ -0,0 +1,125 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.proofreaders.MultiplexedProofReader.Report;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Each column of the combined report must match what the proofreader prints when run on its own.
+ */
+public class MultiplexedProofReaderTest {
+    private static final String SOURCE = "../tools/bt/src/test/resources/escape-from-monster-caverns.bas";
+
+    @Test
+    public void testMatchesIndividualProofReaders() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(new File(SOURCE)).build();
+        Program program = new Parser(ModernTokenReader.tokenize(SOURCE)).parse();
+        List<Function<Configuration,LineProofReader>> factories = List.of(NibbleCheckit::new,
+                ComputeAutomaticProofreader::new, NibbleAppleChecker::new, MicrosparcKeyPerfect2::new,
+                MicrosparcKeyPerfect4::new, MicrosparcKeyPerfect5::new);
+        Report report = new MultiplexedProofReader(config,
+                factories.stream().map(f -> f.apply(config)).toList()).addProgram(program);
+        assertEquals(program.lines.size(), report.rows().size());
+
+        // Line scoped: "XX | line"
+        assertEquals(legacyLineValues(capture(() -> new NibbleCheckit(config).addProgram(program))), column(report, 0));
+        assertEquals(legacyLineValues(capture(() -> new ComputeAutomaticProofreader(config).addProgram(program))), column(report, 1));
+        assertEquals(lastWord(capture(() -> new NibbleCheckit(config).addProgram(program)), "TOTAL:"),
+                total(report, "CHECKIT", "TOTAL"));
+        // Program scoped
+        List<String> appleChecker = capture(() -> new NibbleAppleChecker(config).addProgram(program));
+        assertEquals(lastWord(appleChecker, "Length:"), total(report, "APPLE-CHECKER", "LENGTH"));
+        assertEquals(lastWord(appleChecker, "Checksum:"), total(report, "APPLE-CHECKER", "CHECKSUM"));
+        // Groups of 10 lines
+        assertKeyPerfect(capture(() -> new MicrosparcKeyPerfect2(config).addProgram(program)), report, 3);
+        assertKeyPerfect(capture(() -> new MicrosparcKeyPerfect4(config).addProgram(program)), report, 4);
+        assertKeyPerfect(capture(() -> new MicrosparcKeyPerfect5(config).addProgram(program)), report, 5);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(new File(SOURCE)).build();
+        Program program = new Parser(ModernTokenReader.tokenize(SOURCE)).parse();
+        assertTrue(program.lines.size() > MultiplexedProofReader.SPLIT_THRESHOLD * 2);
+        Function<Boolean,Report> run = parallel -> new MultiplexedProofReader(config,
+                List.of(new NibbleCheckit(config), new MicrosparcKeyPerfect4(config), new ComputeAutomaticProofreader(config)))
+                .parallel(parallel).addProgram(program);
+        Report sequential = run.apply(false);
+        Report parallel = run.apply(true);
+        assertEquals(sequential.rows(), parallel.rows());
+        assertEquals(sequential.totals(), parallel.totals());
+    }
+
+    private void assertKeyPerfect(List<String> output, Report report, int column) {
+        List<String> groups = new ArrayList<>();
+        for (String line : output.subList(2, output.size() - 1)) {
+            groups.add(line.substring(line.lastIndexOf(' ') + 1));
+        }
+        List<String> actual = column(report, column).stream().filter(s -> !s.isEmpty()).toList();
+        assertEquals(groups, actual);
+        assertEquals(lastWord(output, "PROGRAM TOTAL"), total(report, report.proofReaders().get(column), "PROGRAM TOTAL"));
+    }
+
+    private List<String> column(Report report, int column) {
+        String name = report.proofReaders().get(column);
+        return report.rows().stream()
+                .map(row -> row.values().containsKey(name) ? row.values().get(name).text() : "")
+                .toList();
+    }
+
+    private String total(Report report, String proofReader, String label) {
+        return report.total(proofReader, label).orElseThrow().text();
+    }
+
+    private List<String> legacyLineValues(List<String> output) {
+        return output.stream().filter(line -> line.contains(" | ")).map(line -> line.substring(0, 2)).toList();
+    }
+
+    private String lastWord(List<String> output, String prefix) {
+        String line = output.stream().filter(s -> s.startsWith(prefix)).findFirst().orElseThrow();
+        return line.substring(line.lastIndexOf(' ') + 1);
+    }
+
+    private List<String> capture(Runnable runnable) {
+        PrintStream original = System.out;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outputStream));
+        try {
+            runnable.run();
+        } finally {
+            System.setOut(original);
+        }
+        return outputStream.toString().lines().toList();
+    }
+}
@@ -17,12 +17,19 @@
  */
 package org.applecommander.bastools.api.proofreaders;
 
+import org.applecommander.bastools.api.ClassicTokenReader;
 import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.visitors.ByteVisitor;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class NibbleAppleCheckerTest {
     @Test
@@ -50,4 +57,72 @@ public class NibbleAppleCheckerTest {
         assertEquals(0x2, checker.getLength());
         assertEquals(0x4b, checker.getChecksumValue());
     }
+
+    @Test
+    public void testProgramLongerThanStartAddress() {
+        // The start address falls inside the program, and the bytes found there are not a valid link
+        Configuration config = Configuration.builder()
+                .startAddress(0x0001)
+                .sourceFile(new File("test.bas"))
+                .build();
+        NibbleAppleChecker checker = new NibbleAppleChecker(config);
+        byte[] code = { 0x09, 0x00, 0x0a, 0x00, (byte)0x89, 0x3a, (byte)0x97, 0x00, 0x00, 0x00 };
+        checker.addBytes(code);
+        assertEquals(0x2, checker.getLength());
+        assertEquals(0x4b, checker.getChecksumValue());
+    }
+
+    @Test
+    public void testLinksAreIgnored() {
+        // Same program as above, but the line link ($400A) now has a byte that would be counted
+        Configuration config = Configuration.builder()
+                .startAddress(0x4001)
+                .sourceFile(new File("test.bas"))
+                .build();
+        NibbleAppleChecker checker = new NibbleAppleChecker(config);
+        byte[] code = { 0x09, 0x40, 0x0a, 0x00, (byte)0x89, 0x3a, (byte)0x97, 0x00, 0x00, 0x00 };
+        checker.addBytes(code);
+        assertEquals(0x2, checker.getLength());
+        assertEquals(0x4b, checker.getChecksumValue());
+    }
+
+    @Test
+    public void testMatchesOriginal() throws IOException {
+        String source = """
+                1 GOTO 10
+                2 HOME : RETURN
+                10 REM ESCAPE FROM MONSTER CAVERNS
+                100 PRINT "YOU CAN PLAY THIS GAME IN 3 VERSIONS:"
+                110 PRINT
+                120 PRINT TAB(5);"1-HARD"
+                160 PRINT "WHICH ONE DO YOU WANT";
+                170 INPUT DI
+                180 IF DI < 1 THEN 160
+                200 GOSUB 2
+                """;
+        Program program = new Parser(ClassicTokenReader.tokenize(new StringReader(source))).parse();
+        String original = OriginalAppleChecker.check(tokenize(program, OriginalAppleChecker.LOAD_ADDRESS));
+        // The links differ between load addresses, and neither checker should see them
+        for (int startAddress : new int[] { OriginalAppleChecker.LOAD_ADDRESS, 0x801 }) {
+            Configuration config = Configuration.builder()
+                    .startAddress(startAddress)
+                    .sourceFile(new File("test.bas"))
+                    .build();
+            NibbleAppleChecker checker = new NibbleAppleChecker(config);
+            checker.addBytes(tokenize(program, startAddress));
+            String expected = String.format("LENGTH: %04X\nCHECKSUM: %02X\n",
+                    checker.getLength(), checker.getChecksumValue());
+            assertTrue(original, original.endsWith(expected));
+        }
+    }
+
+    private static byte[] tokenize(Program program, int startAddress) {
+        Configuration config = Configuration.builder()
+                .startAddress(startAddress)
+                .sourceFile(new File("test.bas"))
+                .build();
+        ByteVisitor visitor = new ByteVisitor(config);
+        visitor.visit(program);
+        return visitor.getBytes();
+    }
 }
@@ -0,0 +1,222 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.proofreaders;
+
+import java.util.HexFormat;
+
+/**
+ * Runs the object code of Apple Checker 3.0, as printed in Nibble Express Vol. III (see
+ * <code>reference/apple-checker.pdf</code>), on just enough of a 6502 to check an Applesoft program.
+ * The monitor routines it calls are replaced by ones that collect the output. This gives reference
+ * values that do not depend on {@link NibbleAppleChecker}.
+ */
+public class OriginalAppleChecker {
+    private static final int ORIGIN = 0x0803;
+    private static final int START = 0x082a;
+    private static final int CLNUP = 0x09dc;
+    /** Where Apple Checker 3.0 has Applesoft load programs. */
+    public static final int LOAD_ADDRESS = 0x0b01;
+    /** $0803 to $0A59, the BSAVE range from the article. */
+    private static final byte[] CODE = HexFormat.of().parseHex((
+            "d8 a9 01 85 4a a9 0b 85 68 85 4b a9 00 8d 00 0b a9 4c 85 19 a9 2a 85 1a a9 08 85 1b a9 03 8d f6 03 a9 08 8d f7 03 60"  // $0803 INIT
+            + "d8 a2 00 a0 08 96 00 88 10 fb bd 42 0a 95 e0 e8 e0 1a d0 f6"  // $082A START
+            + "20 58 fc 20 8e fd a9 0d 85 24 a2 15 bd 2c 0a 20 ed fd ca 10 f7"  // $083E header
+            + "ad f6 b5 f0 65 0a 4a 4a 0a 85 07"  // $0853 file type
+            + "a2 00 bd 75 aa 20 ed fd e8 e0 1e d0 f5"  // $085E file name
+            + "a2 06 bd 25 0a 20 ed fd ca 10 f7 a5 07 4a 18 69 c0 c9 c0 d0 02 a9 c9 20 ed fd"  // $086B
+            + "a6 07 a1 e0 85 01 a1 e6 85 02 a1 ec 85 03 a1 f2 85 04 e6 08 a5 07 c9 04 d0 27"  // $0885 indirect addresses
+            + "a5 02 c9 08 f0 18 a5 03 85 05 a5 04 85 06 18 a5 01 65 05 85 03 a5 02 65 06 85 04 4c 3a 09"  // $089F binary file
+            + "20 8e fd 20 2d ff 4c dc 09"  // $08BD GETAGN
+            + "a5 07 f0 32 ad 00 e0 c9 4c d0 ec"  // $08C6 BASIC
+            + "a0 00 b1 01 85 0a c8 b1 01 85 0b a9 00 a8 91 01 c8 91 01 a5 0a 85 01 a5 0b 85 02 d0 e3"  // $08D1 CLRADD
+            + "a6 07 a1 e0 85 01 a1 e6 85 02 e6 08 d0 3e"  // $08EE
+            + "ad 00 e0 c9 20 d0 ba a0 00 a5 01 85 0a a5 02 85 0b c5 04 90 17 f0 02 b0 06 a5 0a c5 03 90 0d a6 07 a1 e0 85 01 a1 e6 85 02 4c 3a 09"  // $08FC IBASIC
+            + "b1 0a 18 65 01 85 01 a5 02 69 00 85 02 98 91 0a f0 cb"  // $0928 INTCLR
+            + "38 a5 03 e5 08 85 03 a5 04 e9 00 85 04 a5 07 c9 04 f0 0d 38 a5 03 e5 01 85 05 a5 04 e5 02 85 06"  // $093A CONT
+            + "a0 00 b1 01 8d 00 04 a6 07 f0 0e e0 04 f0 28 c9 21 b0 24 c9 04 f0 20 d0 0c c9 80 90 1a c9 a1 b0 16 c9 84 f0 12"  // $095A DOCKCD
+            + "38 a5 05 e9 01 85 05 a5 06 f0 04 e9 00 85 06 4c 9b 09"  // $097F IGNCHR
+            + "18 45 00 2a 65 00 69 00 85 00"  // $0991 SUMIT
+            + "18 a5 01 69 01 85 01 98 65 02 85 02 18 a5 02 c5 04 90 ac d0 07 18 a5 03 c5 01 b0 a3"  // $099B NXT
+            + "a2 09 bd 10 0a 20 ed fd ca 10 f7 a5 06 a6 05 20 41 f9 a2 0a bd 1a 0a 20 ed fd ca 10 f7 a5 00 20 da fd 20 8e fd"  // $09B7 ALLDONE
+            + "a9 a0 8d 00 04 a2 04 a9 08 81 e6 a0 19 a9 00 99 e0 00 88 d0 fa 8d 01 0b 8d 02 0b 8d 03 0b 8d f6 b5 a9 01 85 f1 a9 04 85 af a5 4c 85 ca a5 4d 85 cb 4c d0 03"  // $09DC CLNUP
+            + "a0 ba c8 d4 c7 ce c5 cc 8d 8d"  // $0A10 LENGT
+            + "a0 ba cd d5 d3 cb c3 c5 c8 c3 8d"  // $0A1A TOT
+            + "a0 ba c5 d0 d9 d4 8d"  // $0A25 CTYP
+            + "a0 ba ce cf 8d 8d 8d 8d b0 ae b3 a0 c5 c4 cf c3 a0 cb c3 c5 c8 c3"  // $0A2C INP
+            + "ca 00 67 00 72 aa cb 00 68 00 73 aa 4c 00 af 00 60 aa 4d 00 b0 00 61 aa"  // $0A42 PDATA
+            ).replace(" ", ""));
+
+    private final int[] memory = new int[0x10000];
+    private final StringBuilder output = new StringBuilder();
+    private int a, x, y, pc, sp = 0xff;
+    private boolean carry, zero, negative;
+
+    /** Check the tokenized program (which must be built for {@link #LOAD_ADDRESS}) and answer the output. */
+    public static String check(byte[] program) {
+        return new OriginalAppleChecker().run(program);
+    }
+
+    private String run(byte[] program) {
+        for (int i = 0; i < CODE.length; i++) {
+            memory[ORIGIN + i] = Byte.toUnsignedInt(CODE[i]);
+        }
+        for (int i = 0; i < program.length; i++) {
+            memory[LOAD_ADDRESS + i] = Byte.toUnsignedInt(program[i]);
+        }
+        int end = LOAD_ADDRESS + program.length;
+        memory[0x67] = LOAD_ADDRESS & 0xff;
+        memory[0x68] = LOAD_ADDRESS >> 8;
+        memory[0xaf] = end & 0xff;
+        memory[0xb0] = end >> 8;
+        memory[0xe000] = 0x4c;      // Applesoft is active
+        memory[0xb5f6] = 0x02;      // DOS file type: Applesoft
+        for (int i = 0; i < 30; i++) {
+            memory[0xaa75 + i] = 0xa0;
+        }
+        pc = START;
+        for (int steps = 0; pc != CLNUP; steps++) {
+            if (steps > 10_000_000) throw new IllegalStateException("Apple Checker did not finish");
+            step();
+        }
+        return output.toString();
+    }
+
+    private void step() {
+        int opcode = fetch();
+        switch (opcode) {
+            case 0xd8 -> { }                                        // CLD
+            case 0x18 -> carry = false;                             // CLC
+            case 0x38 -> carry = true;                              // SEC
+            case 0xa9 -> a = flags(fetch());                        // LDA #
+            case 0xa5 -> a = flags(memory[fetch()]);                // LDA zp
+            case 0xad -> a = flags(memory[fetchWord()]);            // LDA abs
+            case 0xbd -> a = flags(memory[fetchWord() + x]);        // LDA abs,X
+            case 0xa1 -> a = flags(memory[indirectX()]);            // LDA (zp,X)
+            case 0xb1 -> a = flags(memory[indirectY()]);            // LDA (zp),Y
+            case 0xa2 -> x = flags(fetch());                        // LDX #
+            case 0xa6 -> x = flags(memory[fetch()]);                // LDX zp
+            case 0xa0 -> y = flags(fetch());                        // LDY #
+            case 0x85 -> memory[fetch()] = a;                       // STA zp
+            case 0x95 -> memory[(fetch() + x) & 0xff] = a;          // STA zp,X
+            case 0x8d -> memory[fetchWord()] = a;                   // STA abs
+            case 0x99 -> memory[fetchWord() + y] = a;               // STA abs,Y
+            case 0x81 -> memory[indirectX()] = a;                   // STA (zp,X)
+            case 0x91 -> memory[indirectY()] = a;                   // STA (zp),Y
+            case 0x96 -> memory[(fetch() + y) & 0xff] = x;          // STX zp,Y
+            case 0xa8 -> y = flags(a);                              // TAY
+            case 0x98 -> a = flags(y);                              // TYA
+            case 0xe8 -> x = flags((x + 1) & 0xff);                 // INX
+            case 0xca -> x = flags((x - 1) & 0xff);                 // DEX
+            case 0xc8 -> y = flags((y + 1) & 0xff);                 // INY
+            case 0x88 -> y = flags((y - 1) & 0xff);                 // DEY
+            case 0xe6 -> {                                          // INC zp
+                int address = fetch();
+                memory[address] = flags((memory[address] + 1) & 0xff);
+            }
+            case 0x0a -> {                                          // ASL A
+                carry = (a & 0x80) != 0;
+                a = flags((a << 1) & 0xff);
+            }
+            case 0x4a -> {                                          // LSR A
+                carry = (a & 0x01) != 0;
+                a = flags(a >> 1);
+            }
+            case 0x2a -> {                                          // ROL A
+                int result = (a << 1) | (carry ? 1 : 0);
+                carry = result > 0xff;
+                a = flags(result & 0xff);
+            }
+            case 0x45 -> a = flags(a ^ memory[fetch()]);            // EOR zp
+            case 0x69 -> adc(fetch());                              // ADC #
+            case 0x65 -> adc(memory[fetch()]);                      // ADC zp
+            case 0xe9 -> adc(fetch() ^ 0xff);                       // SBC #
+            case 0xe5 -> adc(memory[fetch()] ^ 0xff);               // SBC zp
+            case 0xc9 -> compare(a, fetch());                       // CMP #
+            case 0xc5 -> compare(a, memory[fetch()]);               // CMP zp
+            case 0xe0 -> compare(x, fetch());                       // CPX #
+            case 0x10 -> branch(!negative);                         // BPL
+            case 0xd0 -> branch(!zero);                             // BNE
+            case 0xf0 -> branch(zero);                              // BEQ
+            case 0x90 -> branch(!carry);                            // BCC
+            case 0xb0 -> branch(carry);                             // BCS
+            case 0x4c -> pc = fetchWord();                          // JMP
+            case 0x20 -> jsr(fetchWord());                          // JSR
+            case 0x60 -> pc = (pull() | pull() << 8) + 1;           // RTS
+            default -> throw new IllegalStateException(String.format("Opcode $%02X at $%04X", opcode, pc - 1));
+        }
+    }
+
+    /** Monitor routines are done here; anything else is a real subroutine call. */
+    private void jsr(int address) {
+        switch (address) {
+            case 0xfc58 -> { }                                              // HOME
+            case 0xfd8e -> output.append('\n');                             // CROUT
+            case 0xfded -> output.append(a == 0x8d ? '\n' : (char)(a & 0x7f));  // COUT
+            case 0xfdda -> output.append(String.format("%02X", a));         // PRBYTE
+            case 0xf941 -> output.append(String.format("%02X%02X", a, x));  // PRNTAX
+            case 0xff2d -> output.append("ERR");                            // PRERR
+            default -> {
+                int returnAddress = pc - 1;
+                push(returnAddress >> 8);
+                push(returnAddress & 0xff);
+                pc = address;
+            }
+        }
+    }
+
+    private int fetch() {
+        return memory[pc++];
+    }
+    private int fetchWord() {
+        return fetch() | fetch() << 8;
+    }
+    private int indirectX() {
+        int pointer = (fetch() + x) & 0xff;
+        return memory[pointer] | memory[(pointer + 1) & 0xff] << 8;
+    }
+    private int indirectY() {
+        int pointer = fetch();
+        return ((memory[pointer] | memory[(pointer + 1) & 0xff] << 8) + y) & 0xffff;
+    }
+    private int flags(int value) {
+        zero = value == 0;
+        negative = (value & 0x80) != 0;
+        return value;
+    }
+    private void adc(int value) {
+        int result = a + value + (carry ? 1 : 0);
+        carry = result > 0xff;
+        a = flags(result & 0xff);
+    }
+    private void compare(int register, int value) {
+        carry = register >= value;
+        flags((register - value) & 0xff);
+    }
+    private void branch(boolean condition) {
+        int offset = (byte) fetch();
+        if (condition) pc += offset;
+    }
+    private void push(int value) {
+        memory[0x100 + sp] = value;
+        sp = (sp - 1) & 0xff;
+    }
+    private int pull() {
+        sp = (sp + 1) & 0xff;
+        return memory[0x100 + sp];
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.shapes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BeamSearchVectorizationTest {
+    @Test
+    public void testSearchPlotsEveryPixelOnce() {
+        Random random = new Random(7);
+        for (int n=0; n<20; n++) {
+            BitmapShape bitmapShape = new BitmapShape(1 + random.nextInt(8), 1 + random.nextInt(8));
+            for (int i=0; i<12; i++) {
+                bitmapShape.plot(random.nextInt(8), random.nextInt(8));
+            }
+            bitmapShape.origin.setLocation(random.nextInt(10) - 1, random.nextInt(10) - 1);
+            VectorShape vectorShape = new BeamSearchVectorization(bitmapShape, 16).get();
+            // Decode the bytes, as that is where invalid encodings would lose vectors
+            VectorShape decoded = VectorShape.from(ByteBuffer.wrap(vectorShape.toBytes()));
+            assertEquals(pixels(bitmapShape), plotted(bitmapShape.origin, decoded));
+        }
+    }
+
+    @Test
+    public void testSearchIsNeverWorseThanHeuristics() {
+        Random random = new Random(11);
+        for (int n=0; n<20; n++) {
+            BitmapShape bitmapShape = new BitmapShape(12, 12);
+            for (int i=0; i<40; i++) {
+                bitmapShape.plot(random.nextInt(12), random.nextInt(12));
+            }
+            int heuristic = bitmapShape.toVector().encodedLength();
+            assertTrue(new BeamSearchVectorization(bitmapShape, 4).get().encodedLength() <= heuristic);
+        }
+        // Diagonals are where the packing of vectors into bytes matters
+        BitmapShape cross = cross(16);
+        assertTrue(new BeamSearchVectorization(cross, 16).get().encodedLength() < cross.toVector().encodedLength());
+    }
+
+    @Test
+    public void testFixedWidthIsRepeatable() {
+        BitmapShape cross = cross(30);
+        VectorShape first = new BeamSearchVectorization(cross, 64).get();
+        VectorShape second = new BeamSearchVectorization(cross, 64).get();
+        assertEquals(first.vectors, second.vectors);
+    }
+
+    @Test
+    public void testBudgetIsHonored() {
+        // Far too large to search within a millisecond, even with a beam width of 1
+        BitmapShape cross = cross(200);
+        BeamSearchVectorization search = new BeamSearchVectorization(cross, Duration.ofMillis(1));
+        assertEquals(cross.toVector().vectors, search.get().vectors);
+        assertEquals(0, search.getCompletedWidth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWidthIsChecked() {
+        new BeamSearchVectorization(cross(4), 0);
+    }
+
+    @Test
+    public void testOptimizerIsNeverWorseThanHeuristics() throws IOException {
+        ShapeTable st = ShapeGenerator.generate(getClass().getResourceAsStream("/robot-bitmap.st"));
+        st.shapes.addAll(ShapeGenerator.generate(getClass().getResourceAsStream("/box-shortform.st")).shapes);
+        ShapeTableOptimizer.Result result = new ShapeTableOptimizer().width(16).parallelism(2).optimize(st);
+        assertEquals(2, result.shapes().size());
+        for (ShapeTableOptimizer.ShapeResult shape : result.shapes()) {
+            assertTrue(shape.toString(), shape.savedBytes() >= 0);
+            int length = result.shapeTable().shapes.get(shape.number() - 1).toVector().toBytes().length;
+            assertEquals(shape.bytes(), length);
+        }
+        // Vector shapes are left as written
+        assertEquals(0, result.shapes().get(1).savedBytes());
+        assertEquals(st.shapes.get(1), result.shapeTable().shapes.get(1));
+        BitmapShape robot = (BitmapShape) st.shapes.getFirst();
+        assertEquals(pixels(robot), plotted(robot.origin, result.shapeTable().shapes.getFirst().toVector()));
+    }
+
+    private BitmapShape cross(int size) {
+        BitmapShape bitmapShape = new BitmapShape(size, size);
+        for (int i=0; i<size; i++) {
+            bitmapShape.plot(i, i);
+            bitmapShape.plot(size - 1 - i, i);
+        }
+        return bitmapShape;
+    }
+
+    private Set<Point> pixels(BitmapShape bitmapShape) {
+        Set<Point> pixels = new HashSet<>();
+        for (int y=0; y<bitmapShape.getHeight(); y++) {
+            for (int x=0; x<bitmapShape.getWidth(); x++) {
+                if (bitmapShape.get(x, y)) pixels.add(new Point(x, y));
+            }
+        }
+        return pixels;
+    }
+
+    private Set<Point> plotted(Point origin, VectorShape vectorShape) {
+        Set<Point> pixels = new HashSet<>();
+        Point point = new Point(origin);
+        for (VectorCommand command : vectorShape.vectors) {
+            if (command.plot) {
+                assertFalse("plotted twice: " + point, pixels.contains(point));
+                pixels.add(new Point(point));
+            }
+            point.translate(command.xmove, command.ymove);
+        }
+        return pixels;
+    }
+}
@@ -19,10 +19,17 @@ package org.applecommander.bastools.api.shapes;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.Point;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
 
 import org.junit.Test;
 
@@ -102,6 +109,66 @@ public class ShapesTest {
         assertEquals(expected.grid, s.toBitmap().grid);
     }
     
+    @Test
+    public void testBitmapGrowsInAllDirections() {
+        BitmapShape shape = new BitmapShape();
+        shape.addRow();
+        shape.addColumn();
+        shape.plot(0, 0);
+        for (int i=0; i<100; i++) {
+            shape.insertRow();
+            shape.insertColumn();
+            shape.addRow();
+            shape.addColumn();
+        }
+        assertEquals(201, shape.getWidth());
+        assertEquals(201, shape.getHeight());
+        assertEquals(new Point(100, 100), shape.origin);
+        assertTrue(shape.get(shape.origin));
+        shape.plot(200, 0);
+        assertTrue(shape.grid.get(0).get(200));
+        shape.grid.get(100).set(100, Boolean.FALSE);
+        assertFalse(shape.get(100, 100));
+        shape.plot(200, 0, Boolean.FALSE);
+        assertTrue(shape.isEmpty());
+    }
+
+    @Test
+    public void testToVectorChoosesShortestCandidate() {
+        Random random = new Random(42);
+        for (int n=0; n<50; n++) {
+            BitmapShape bitmapShape = new BitmapShape(1 + random.nextInt(12), 1 + random.nextInt(12));
+            for (int i=0; i<20; i++) {
+                bitmapShape.plot(random.nextInt(12), random.nextInt(12));
+            }
+            bitmapShape.origin.setLocation(random.nextInt(bitmapShape.getWidth()), random.nextInt(bitmapShape.getHeight()));
+            // Sequential scan with the original tie-breaking: last of the shortest wins
+            List<Supplier<VectorShape>> scans = new ArrayList<>();
+            for (VectorCommand movement : List.of(VectorCommand.MOVE_RIGHT, VectorCommand.MOVE_LEFT)) {
+                scans.add(new BitmapShape.SweepVectorization(bitmapShape, movement, VectorCommand.MOVE_UP));
+                scans.add(new BitmapShape.SweepVectorization(bitmapShape, movement, VectorCommand.MOVE_DOWN));
+            }
+            for (VectorCommand movement : List.of(VectorCommand.MOVE_DOWN, VectorCommand.MOVE_UP)) {
+                scans.add(new BitmapShape.SweepVectorization(bitmapShape, movement, VectorCommand.MOVE_RIGHT));
+                scans.add(new BitmapShape.SweepVectorization(bitmapShape, movement, VectorCommand.MOVE_LEFT));
+            }
+            scans.add(new BitmapShape.EuclidianDistanceVectorization(bitmapShape));
+            VectorShape expected = null;
+            for (Supplier<VectorShape> scan : scans) {
+                VectorShape candidate = scan.get();
+                assertEquals(candidate.toBytes().length, candidate.encodedLength());
+                if (expected == null || expected.toBytes().length >= candidate.toBytes().length) {
+                    expected = candidate;
+                }
+            }
+            VectorShape actual = bitmapShape.toVector();
+            assertEquals(expected.vectors, actual.vectors);
+            // Memoized result is handed out as a fresh copy
+            actual.vectors.clear();
+            assertEquals(expected.vectors, bitmapShape.toVector().vectors);
+        }
+    }
+
     @Test
     public void testToVectorFromBitmap() {
         BitmapShape bitmapShape = plotStandardBoxShape();
@@ -0,0 +1,111 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.shapes;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorShapeTest {
+    @Test
+    public void testOptimizeExamples() {
+        assertOptimized("uuUU", "luurUU");
+        assertOptimized("UU", "LurUdd");
+        assertOptimized("RR", "DruRlr");
+        assertOptimized("", "udlr");
+    }
+    private void assertOptimized(String expected, String shortCommands) {
+        VectorShape shape = new VectorShape();
+        shape.appendShortCommands(shortCommands);
+        assertEquals(shape.optimizeWithRegex().toShortCommands(), shape.optimize().toShortCommands());
+        assertEquals(expected, shape.optimize().toShortCommands());
+    }
+
+    @Test
+    public void testOptimizeMatchesRegex() {
+        Random random = new Random(2024);
+        VectorCommand[] commands = VectorCommand.values();
+        for (int n=0; n<5000; n++) {
+            VectorShape shape = new VectorShape();
+            int length = random.nextInt(60);
+            // Bias towards moves so the rules have something to find
+            for (int i=0; i<length; i++) {
+                shape.append(commands[random.nextInt(4) < 3 ? random.nextInt(4) : random.nextInt(8)]);
+            }
+            assertEquals(shape.toShortCommands(), shape.optimizeWithRegex().vectors, shape.optimize().vectors);
+        }
+    }
+
+    @Test
+    public void testToBytesMatchesLinkedListEncoder() {
+        Random random = new Random(1981);
+        VectorCommand[] commands = VectorCommand.values();
+        for (int n=0; n<5000; n++) {
+            VectorShape shape = new VectorShape();
+            int length = random.nextInt(40);
+            // Runs of MOVE_UP and plots exercise the padding and push back paths
+            for (int i=0; i<length; i++) {
+                shape.append(random.nextInt(3) == 0 ? VectorCommand.MOVE_UP : commands[random.nextInt(8)]);
+            }
+            byte[] expected = referenceToBytes(shape.vectors);
+            assertArrayEquals(shape.toShortCommands(), expected, shape.toBytes());
+            assertEquals(expected.length, shape.encodedLength());
+        }
+    }
+
+    /** The original {@code VectorShape.toBytes} implementation. */
+    private byte[] referenceToBytes(List<VectorCommand> vectors) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        LinkedList<VectorCommand> work = new LinkedList<>(vectors);
+        while (!work.isEmpty()) {
+            VectorCommand vector1 = work.remove();
+            int section1 = vector1.ordinal();
+            VectorCommand vector2 = work.poll();
+            int section2 = Optional.ofNullable(vector2).map(VectorCommand::ordinal).orElse(0);
+            VectorCommand vector3 = work.poll();
+            if (vector3 != null && (vector3.plot || vector3 == VectorCommand.MOVE_UP)) {
+                work.addFirst(vector3);
+                vector3 = null;
+            }
+            int section3 = Optional.ofNullable(vector3).map(VectorCommand::ordinal).orElse(0);
+            if (section3 == 0 && section2 == 0 && !work.isEmpty()) {
+                vector3 = VectorCommand.MOVE_LEFT;
+                section3 = vector3.ordinal();
+                int moveUpCount = 0;
+                for (VectorCommand test : work) {
+                    if (test == VectorCommand.MOVE_UP) {
+                        moveUpCount += 1;
+                    } else {
+                        break;
+                    }
+                }
+                work.add(Math.min(moveUpCount,2), VectorCommand.MOVE_RIGHT);
+            }
+            outputStream.write(section3 << 6 | section2 << 3 | section1);
+        }
+        outputStream.write(0);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.applecommander.bastools.api.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AssetCacheTest {
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("assetcache");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testHitsAndMisses() throws IOException {
+        AssetCache cache = new AssetCache(1024);
+        Path file = write("a.bin", 10);
+        byte[] first = cache.readAllBytes(file);
+        byte[] second = cache.readAllBytes(file);
+        assertSame(first, second);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws IOException {
+        AssetCache cache = new AssetCache(1024);
+        Path file = write("a.bin", 10);
+        cache.readAllBytes(file);
+        Files.write(file, new byte[] { 1, 2, 3 });
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, cache.readAllBytes(file));
+        assertEquals(2, cache.stats().misses());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    @Test
+    public void testSubMillisecondChangeIsReloaded() throws IOException {
+        AssetCache cache = new AssetCache(1024);
+        Path file = write("a.bin", 10);
+        FileTime modified = FileTime.from(Instant.parse("2026-01-02T03:04:05.000001Z"));
+        Files.setLastModifiedTime(file, modified);
+        cache.readAllBytes(file);
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        Files.setLastModifiedTime(file, FileTime.from(modified.toInstant().plusNanos(1000)));
+        assumeFalse("File system keeps only milliseconds", Files.getLastModifiedTime(file).equals(modified));
+        assertEquals(1, cache.readAllBytes(file)[0]);
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    public void testReplacedFileIsReloaded() throws IOException {
+        AssetCache cache = new AssetCache(1024);
+        Path file = write("a.bin", 10);
+        FileTime modified = Files.getLastModifiedTime(file);
+        assumeTrue("File system has no file keys", Files.readAttributes(file, BasicFileAttributes.class).fileKey() != null);
+        cache.readAllBytes(file);
+        // Same size and time, but a different file
+        Path replacement = Files.write(dir.resolve("b.bin"), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        Files.setLastModifiedTime(replacement, modified);
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(1, cache.readAllBytes(file)[0]);
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    public void testConfigurationDoesNotCacheByDefault() {
+        Configuration config = Configuration.builder().sourceFile(new File("x.bas")).build();
+        assertSame(AssetCache.none(), config.assetCache);
+        assertEquals(0, config.assetCache.stats().capacity());
+    }
+
+    @Test
+    public void testKindsAreSeparate() throws IOException {
+        AssetCache cache = new AssetCache(1024);
+        Path file = write("a.bin", 10);
+        AtomicInteger loads = new AtomicInteger();
+        cache.readAllBytes(file);
+        Integer length = cache.get("length", file, p -> loads.incrementAndGet() * (int) Files.size(p), x -> 4);
+        assertEquals(Integer.valueOf(10), length);
+        cache.get("length", file, p -> loads.incrementAndGet(), x -> 4);
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.stats().entries());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws IOException {
+        AssetCache cache = new AssetCache(250);
+        Path a = write("a.bin", 100);
+        Path b = write("b.bin", 100);
+        Path c = write("c.bin", 100);
+        cache.readAllBytes(a);
+        cache.readAllBytes(b);
+        cache.readAllBytes(a);  // a is now most recently used
+        cache.readAllBytes(c);  // evicts b
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(200, cache.stats().weight());
+        cache.readAllBytes(a);
+        assertEquals(2, cache.stats().hits());
+        cache.readAllBytes(b);
+        assertEquals(4, cache.stats().misses());
+    }
+
+    @Test
+    public void testZeroCapacityDisablesCaching() throws IOException {
+        AssetCache cache = new AssetCache(0);
+        Path file = write("a.bin", 10);
+        cache.readAllBytes(file);
+        cache.readAllBytes(file);
+        assertEquals(2, cache.stats().misses());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    private Path write(String name, int size) throws IOException {
+        return Files.write(dir.resolve(name), new byte[size]);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ByteSinkTest {
+    private static final byte[] LARGE = new byte[ByteSink.SHARE_THRESHOLD + 10];
+    static {
+        for (int i = 0; i < LARGE.length; i++) LARGE[i] = (byte) i;
+    }
+
+    /** Write the same content to a sink using shared slices and to a plain stream. */
+    private ByteSink sample(ByteArrayOutputStream expected) {
+        ByteSink sink = new ByteSink();
+        sink.writeShort(0x1234);
+        expected.write(0x34);
+        expected.write(0x12);
+        sink.writeShared(LARGE);
+        expected.writeBytes(LARGE);
+        sink.write(7);
+        expected.write(7);
+        sink.writeShared(LARGE);
+        expected.writeBytes(LARGE);
+        return sink;
+    }
+
+    @Test
+    public void testSharedSlicesAreGathered() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteSink sink = sample(expected);
+        assertEquals(expected.size(), sink.size());
+        assertArrayEquals(expected.toByteArray(), sink.toByteArray());
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        sink.writeTo(actual);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+        Path file = Files.createTempFile("bytesink", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            sink.writeTo(channel);
+        }
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+        Files.delete(file);
+    }
+
+    @Test
+    public void testPatchAroundAndInsideSlices() {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteSink sink = sample(expected);
+        byte[] bytes = expected.toByteArray();
+        // After the first slice (buffer byte) and inside the second slice (forces a copy)
+        int after = 2 + LARGE.length;
+        int inside = after + 1 + 100;
+        sink.patchShort(after, 0xabcd);
+        sink.patchShort(inside, 0x5678);
+        bytes[after] = (byte) 0xcd;
+        bytes[after + 1] = (byte) 0xab;
+        bytes[inside] = 0x78;
+        bytes[inside + 1] = 0x56;
+        assertArrayEquals(bytes, sink.toByteArray());
+        // The shared array itself must not change
+        assertEquals((byte) 100, LARGE[100]);
+    }
+
+    @Test
+    public void testTruncate() {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        byte[] bytes = sample(expected).toByteArray();
+        // Whole slices dropped, then cuts inside a slice (which forces a copy)
+        assertTruncations(bytes, bytes.length, 3 + LARGE.length, 2 + LARGE.length, 2, 0);
+        assertTruncations(bytes, 3 + LARGE.length + 100, 50, 1);
+    }
+
+    private void assertTruncations(byte[] bytes, int... sizes) {
+        ByteSink sink = sample(new ByteArrayOutputStream());
+        for (int size : sizes) {
+            sink.truncate(size);
+            assertEquals(size, sink.size());
+            assertArrayEquals(Arrays.copyOf(bytes, size), sink.toByteArray());
+        }
+        sink.write(9);
+        assertEquals(9, sink.toByteArray()[sink.size() - 1]);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.Optional;
+
+import org.applecommander.bastools.api.Directives;
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.junit.Test;
+
+public class CaseInsensitiveIndexTest {
+    @Test
+    public void testFirstValueWins() {
+        CaseInsensitiveIndex<Integer> index = new CaseInsensitiveIndex<Integer>()
+                .add("print", 1)
+                .add("PRINT", 2)
+                .add("+", 3);
+        assertEquals(Optional.of(1), index.find("Print"));
+        assertEquals(Optional.of(3), index.find("+"));
+        assertEquals(Optional.of(3), index.find('+'));
+        assertEquals(Optional.empty(), index.find("PRIN"));
+        assertEquals(Optional.empty(), index.find('-'));
+    }
+
+    @Test
+    public void testKeywordFind() {
+        assertEquals(Optional.of(ApplesoftKeyword.PRINT), ApplesoftKeyword.find("print"));
+        assertEquals(Optional.of(ApplesoftKeyword.questionmark), ApplesoftKeyword.find("?"));
+        // "PR#" is split into "PR" and "#"
+        assertEquals(Optional.of(ApplesoftKeyword.PR), ApplesoftKeyword.find("pr"));
+        assertEquals(Optional.of(ApplesoftKeyword.sub), ApplesoftKeyword.find('-'));
+        assertEquals(Optional.empty(), ApplesoftKeyword.find(","));
+    }
+
+    @Test
+    public void testDirectiveMatch() {
+        assertEquals(Optional.of("$Embed"), Directives.match("10 $Embed file=\"x\"", 3));
+        assertEquals(Optional.of("$hex"), Directives.match("$hex", 0));
+        assertEquals(Optional.empty(), Directives.match("$he", 0));
+        assertEquals(Optional.empty(), Directives.match("A$", 1));
+    }
+}
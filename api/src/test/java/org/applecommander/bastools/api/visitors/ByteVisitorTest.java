@@ -0,0 +1,96 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.api.visitors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+
+import org.applecommander.bastools.api.ClassicTokenReader;
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.Visitors;
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.junit.Test;
+
+public class ByteVisitorTest {
+    /**
+     * Every sample listed in the golden file must still tokenize to exactly the same bytes.
+     * Paths are relative to the api project directory (the Gradle test working directory).
+     */
+    @Test
+    public void testGoldenSamples() throws IOException, NoSuchAlgorithmException {
+        List<String> entries;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/byte-visitor-golden.txt"), StandardCharsets.UTF_8))) {
+            entries = reader.lines().filter(s -> !s.isBlank() && !s.startsWith("#")).toList();
+        }
+        assertFalse(entries.isEmpty());
+        for (String entry : entries) {
+            String[] parts = entry.split(" ");
+            File source = new File(parts[0]);
+            boolean classic = "classic".equals(parts[1]);
+            boolean optimized = "optimized".equals(parts[2]);
+
+            Queue<Token> tokens = classic ? ClassicTokenReader.tokenize(source) : ModernTokenReader.tokenize(source);
+            Program program = new Parser(tokens).parse();
+            Configuration config = Configuration.builder()
+                    .sourceFile(source)
+                    .preserveNumbers(classic)
+                    .build();
+            if (optimized) {
+                for (Optimization optimization : Optimization.values()) {
+                    program = program.accept(optimization.create(config));
+                }
+            }
+            byte[] data = Visitors.byteVisitor(config).dump(program);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            assertEquals(entry, parts[3], HexFormat.of().formatHex(digest));
+        }
+    }
+
+    @Test
+    public void testLengthDoesNotAlterOutput() throws IOException {
+        Program program = new Parser(ClassicTokenReader.tokenize(new StringReader(
+                "10 HOME : PRINT \"HELLO\"\n20 GOTO 10\n"))).parse();
+        ByteVisitor bv = Visitors.byteVisitor(Configuration.builder().sourceFile(new File("test.bas")).build());
+        byte[] expected = bv.dump(program);
+        bv = Visitors.byteVisitor(Configuration.builder().sourceFile(new File("test.bas")).build());
+        program.accept(bv);
+        Line line = program.lines.getFirst();
+        assertEquals(15, bv.length(line));
+        // The program bytes are untouched by measuring a line
+        byte[] actual = bv.getBytes();
+        assertEquals(HexFormat.of().formatHex(expected), HexFormat.of().formatHex(actual));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.ClassicTokenReader;
+import org.applecommander.bastools.api.model.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassicTokenReaderBenchmark {
+    @Param({"1", "100", "1000"})
+    public int scale;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Samples.scaled("destroyer.bas", scale);
+    }
+
+    @Benchmark
+    public Queue<Token> tokenize() throws IOException {
+        return ClassicTokenReader.tokenize(new StringReader(source));
+    }
+
+    @Benchmark
+    public Queue<Token> tokenizeSynthetic(Synthetic synthetic) throws IOException {
+        return ClassicTokenReader.tokenize(new StringReader(synthetic.source));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Synthetic {
+        @Param({"1000", "8000", "32000"})
+        public int lineCount;
+
+        private String source;
+
+        @Setup
+        public void setup() {
+            source = Samples.synthetic(lineCount);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.IncrementalCompiler;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.Visitors;
+import org.applecommander.bastools.api.model.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds a 3,000 line synthetic program where a growing number of lines change between builds.
+ * The rebuild time should grow with the number of changed lines; a full build is the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IncrementalCompileBenchmark {
+    @Param({"3000"})
+    public int lineCount;
+
+    @Param({"0", "1", "10", "100", "1000"})
+    public int changedLines;
+
+    private Configuration config;
+    private String[] variants;
+    private IncrementalCompiler compiler;
+    private int build;
+
+    @Setup
+    public void setup() throws IOException {
+        config = Configuration.builder()
+                .sourceFile(new File("synthetic.bas"))
+                .build();
+        List<String> lines = Samples.synthetic(lineCount).lines().toList();
+        StringBuilder changed = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            changed.append(lines.get(i));
+            // Spread the changes evenly across the program
+            if (changedLines > 0 && i % (lineCount / changedLines) == 0 && i / (lineCount / changedLines) < changedLines) {
+                changed.append(" : X = ").append(i);
+            }
+            changed.append('\n');
+        }
+        variants = new String[] { Samples.synthetic(lineCount), changed.toString() };
+        compiler = new IncrementalCompiler(config, false);
+        compiler.compile(variants[0]);
+    }
+
+    /** Alternate between the two variants, so every build sees the changed lines as new. */
+    @Benchmark
+    public IncrementalCompiler.Result rebuild() throws IOException {
+        return compiler.compile(variants[++build % 2]);
+    }
+
+    @Benchmark
+    public byte[] fullBuild() throws IOException {
+        Program program = new Parser(ModernTokenReader.tokenize(new StringReader(variants[build % 2]))).parse();
+        return Visitors.byteVisitor(config).dump(program);
+    }
+}
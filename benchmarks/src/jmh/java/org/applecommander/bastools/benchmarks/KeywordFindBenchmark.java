@@ -0,0 +1,73 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the indexed {@code ApplesoftKeyword#find(String)} against the original linear scan. The inputs
+ * are the SYNTAX characters and words that the ByteVisitor and ModernTokenReader look up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KeywordFindBenchmark {
+    private final List<String> values = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (ApplesoftKeyword kw : ApplesoftKeyword.values()) {
+            values.add(kw.parts.getFirst().toLowerCase());
+        }
+        values.addAll(List.of("(", ")", ",", ";", ":", "#", "$", "SHIPX", "A$", "CHARGEMAX", "I"));
+    }
+
+    @Benchmark
+    public void indexed(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(ApplesoftKeyword.find(value));
+        }
+    }
+
+    @Benchmark
+    public void linear(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(linearFind(value));
+        }
+    }
+
+    /** The lookup as originally implemented in ApplesoftKeyword. */
+    private static Optional<ApplesoftKeyword> linearFind(String value) {
+        for (ApplesoftKeyword kw : ApplesoftKeyword.values()) {
+            if (value.equalsIgnoreCase(kw.parts.getFirst())) {
+                return Optional.of(kw);
+            }
+        }
+        return Optional.empty();
+    }
+}
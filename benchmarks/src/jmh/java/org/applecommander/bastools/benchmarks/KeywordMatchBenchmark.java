@@ -0,0 +1,102 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.model.ApplesoftKeyword;
+import org.applecommander.bastools.api.utils.KeywordTrie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the keyword trie used by the classic tokenizer against the original approach of
+ * trying every keyword at every candidate position.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KeywordMatchBenchmark {
+    private static final Set<Character> ALT_TOKENS = Set.of('&','+','-','*','/','^','<','=','>');
+
+    @Param({"1000"})
+    public int scale;
+
+    private List<String> lines;
+
+    @Setup
+    public void setup() {
+        lines = Samples.scaledLines("destroyer.bas", scale);
+    }
+
+    @Benchmark
+    public void trie(Blackhole bh) {
+        KeywordTrie trie = KeywordTrie.applesoft();
+        for (String line : lines) {
+            for (int i=0; i<line.length(); i++) {
+                if (isCandidate(line.charAt(i))) {
+                    bh.consume(trie.match(line, i));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void linear(Blackhole bh) {
+        for (String line : lines) {
+            for (int i=0; i<line.length(); i++) {
+                if (isCandidate(line.charAt(i))) {
+                    bh.consume(linearMatch(i, line));
+                }
+            }
+        }
+    }
+
+    private static boolean isCandidate(char ch) {
+        return Character.isLetter(ch) || ALT_TOKENS.contains(ch);
+    }
+
+    /** The keyword search as originally implemented in ClassicTokenReader. Returns the length matched or -1. */
+    private static int linearMatch(final int base, final String line) {
+        for (ApplesoftKeyword kw : ApplesoftKeyword.values()) {
+            int lookahead_idx = base;
+            int token_idx = 0;
+            while (lookahead_idx < line.length() && token_idx < kw.text.length()) {
+                char ch = line.charAt(lookahead_idx);
+                if (ch == ' ') {
+                    lookahead_idx++;
+                    continue;
+                }
+                if (Character.toUpperCase(ch) != kw.text.charAt(token_idx)) {
+                    break;
+                }
+                if (token_idx == kw.text.length() - 1) {
+                    return lookahead_idx - base + 1;
+                }
+                lookahead_idx++;
+                token_idx++;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.model.Line;
+import org.applecommander.bastools.api.model.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a large synthetic program through {@code Line#nextLine()} and looks up every line by
+ * number. The linear variant is the previous {@code List#indexOf} based approach for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LineNavigationBenchmark {
+    @Param({"30000"})
+    public int lineCount;
+
+    private Program program;
+
+    @Setup
+    public void setup() {
+        program = Samples.syntheticProgram(lineCount);
+    }
+
+    @Benchmark
+    public int walkIndexed() {
+        int count = 0;
+        Optional<Line> line = Optional.of(program.lines.getFirst());
+        while (line.isPresent()) {
+            count++;
+            line = line.get().nextLine();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int walkLinear() {
+        int count = 0;
+        Line line = program.lines.getFirst();
+        while (line != null) {
+            count++;
+            int i = program.lines.indexOf(line);
+            line = i+1 < program.lines.size() ? program.lines.get(i+1) : null;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int findByNumber() {
+        int count = 0;
+        for (int n = 1; n <= lineCount; n++) {
+            if (program.findLine(n).isPresent()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
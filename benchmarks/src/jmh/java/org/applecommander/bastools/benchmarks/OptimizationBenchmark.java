@@ -0,0 +1,67 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.model.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each optimization on its own, given a program that the earlier optimizations have already been
+ * applied to, as in the full chain. See {@link OptimizationChainBenchmark} for all of them together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OptimizationBenchmark {
+    @Param({"REMOVE_EMPTY_STATEMENTS", "REMOVE_REM_STATEMENTS", "SHORTEN_VARIABLE_NAMES",
+            "EXTRACT_CONSTANT_VALUES", "MERGE_LINES", "RENUMBER", "SHORTEN_NUMBERS"})
+    public Optimization optimization;
+
+    @Param({"1000", "8000", "32000"})
+    public int lineCount;
+
+    private Configuration config;
+    private Program program;
+
+    @Setup
+    public void setup() {
+        config = Configuration.builder()
+                .sourceFile(new File("synthetic.bas"))
+                .preserveNumbers(true)
+                .build();
+        program = Samples.syntheticProgram(lineCount);
+        // Optimizations depend on the earlier ones (empty statements are gone, for instance)
+        for (Optimization earlier : Optimization.values()) {
+            if (earlier == optimization) break;
+            program = program.accept(earlier.create(config));
+        }
+    }
+
+    @Benchmark
+    public Program optimize() {
+        return program.accept(optimization.create(config));
+    }
+}
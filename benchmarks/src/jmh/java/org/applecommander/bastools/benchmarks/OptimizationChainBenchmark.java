@@ -0,0 +1,69 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.model.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies every optimization in order, as {@code bt -O} does, to synthetic programs of growing size.
+ * One line in five is a comment that gets removed, so the time per line should stay flat.
+ * The pipeline variant fuses the statement and token level optimizations into one tree walk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OptimizationChainBenchmark {
+    @Param({"1000", "8000", "32000"})
+    public int lineCount;
+
+    private Configuration config;
+    private Program program;
+
+    @Setup
+    public void setup() {
+        config = Configuration.builder()
+                .sourceFile(new File("synthetic.bas"))
+                .preserveNumbers(true)
+                .build();
+        program = Samples.syntheticProgram(lineCount);
+    }
+
+    @Benchmark
+    public Program optimize() {
+        Program result = program;
+        for (Optimization optimization : Optimization.values()) {
+            result = result.accept(optimization.create(config));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Program pipeline() {
+        return program.accept(Optimization.pipeline(config, List.of(Optimization.values())));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.proofreaders.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/** Every proofreader over synthetic programs. Proofreaders report on stdout, which is discarded here. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProofReaderBenchmark {
+    @Param({"CHECKIT", "COMPUTE", "APPLE_CHECKER", "KEY_PERFECT_2", "KEY_PERFECT_4", "KEY_PERFECT_5"})
+    public String proofreader;
+
+    /** Tokenized proofreaders follow the line links, so the program has to fit in memory (about 40K here). */
+    @Param({"100", "400", "1600"})
+    public int lineCount;
+
+    private Configuration config;
+    private Program program;
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        config = Configuration.builder()
+                .sourceFile(new File("synthetic.bas"))
+                .build();
+        program = Samples.syntheticProgram(lineCount);
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void proofread() {
+        switch (proofreader) {
+            case "CHECKIT" -> new NibbleCheckit(config).addProgram(program);
+            case "COMPUTE" -> new ComputeAutomaticProofreader(config).addProgram(program);
+            case "APPLE_CHECKER" -> new NibbleAppleChecker(config).addProgram(program);
+            case "KEY_PERFECT_2" -> new MicrosparcKeyPerfect2(config).addProgram(program);
+            case "KEY_PERFECT_4" -> new MicrosparcKeyPerfect4(config).addProgram(program);
+            case "KEY_PERFECT_5" -> new MicrosparcKeyPerfect5(config).addProgram(program);
+            default -> throw new IllegalArgumentException(proofreader);
+        }
+    }
+}
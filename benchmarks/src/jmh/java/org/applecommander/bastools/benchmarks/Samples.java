@@ -0,0 +1,157 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.shapes.ShapeGenerator;
+import org.applecommander.bastools.api.shapes.ShapeTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Access to the sample programs that are bundled into the benchmark resources. */
+public class Samples {
+    private Samples() { /* Prevent construction */ }
+
+    /** Read a sample as text. */
+    public static String text(String name) {
+        try (InputStream inputStream = Samples.class.getResourceAsStream("/" + name)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException(String.format("Sample '%s' not found", name));
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Read a sample and repeat it {@code scale} times. Line numbers are repeated as-is. */
+    public static String scaled(String name, int scale) {
+        String text = text(name);
+        if (!text.endsWith("\n")) {
+            text += "\n";
+        }
+        return text.repeat(scale);
+    }
+
+    /** Read a sample and repeat it {@code scale} times, split into source lines. */
+    public static List<String> scaledLines(String name, int scale) {
+        return new ArrayList<>(scaled(name, scale).lines().toList());
+    }
+
+    /**
+     * Tokenize (with the modern tokenizer, as the samples are written for it) and parse a scaled sample.
+     * Lines with directives are dropped since they read files relative to the working directory.
+     */
+    public static Program parse(String name, int scale) {
+        Program program = parseText(scaled(name, scale));
+        program.lines.removeIf(line -> line.statements.stream()
+                .flatMap(statement -> statement.tokens.stream())
+                .anyMatch(token -> token.type() == Token.Type.DIRECTIVE));
+        return program;
+    }
+
+    /**
+     * Generate a synthetic program with the given number of lines. Line numbers run from 1 upwards
+     * and the lines cycle through comments, assignments, empty statements, loops and output so
+     * that every optimization has something to do. The text is valid for both tokenizers.
+     */
+    public static String synthetic(int lineCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 1; n <= lineCount; n++) {
+            sb.append(n).append(' ');
+            switch (n % 5) {
+                case 0 -> sb.append("REM LINE ").append(n);
+                case 1 -> sb.append("COUNT").append(n % 97).append(" = ").append(n % 97).append(".0 : SUM = SUM + COUNT").append(n % 97);
+                case 2 -> sb.append("IF SUM > 1000 THEN SUM = 0 : PRINT \"RESET\" ::");
+                case 3 -> sb.append("FOR I = 1 TO 10 : POKE 768 + I, I : NEXT I");
+                default -> sb.append("PRINT \"LINE \";").append(n).append(";\" \";SUM");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Tokenize and parse a synthetic program; see {@link #synthetic(int)}. */
+    public static Program syntheticProgram(int lineCount) {
+        return parseText(synthetic(lineCount));
+    }
+
+    /**
+     * Generate a synthetic shape table source with the given number of shapes. Shapes alternate
+     * between short vector commands and 16x16 bitmaps, each one a little different.
+     */
+    public static String syntheticShapes(int shapeCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < shapeCount; n++) {
+            if (n % 2 == 0) {
+                sb.append(".short shape").append(n).append('\n');
+                sb.append("    ").append("d".repeat(1 + n % 3)).append("LLLL").append('\n');
+                sb.append("    ").append("uUUUU".repeat(1 + n % 4)).append('\n');
+                sb.append("    rRRRR dDDDD lL").append('\n');
+            } else {
+                sb.append(".bitmap shape").append(n).append('\n');
+                for (int y = 0; y < 16; y++) {
+                    sb.append("    ");
+                    for (int x = 0; x < 16; x++) {
+                        boolean set = (x == y) || (x + y == 15) || ((x * y + n) % 7 == 0);
+                        sb.append(x == 8 && y == 8 ? (set ? '*' : '+') : (set ? 'X' : '.'));
+                    }
+                    sb.append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Generate a synthetic shape table; see {@link #syntheticShapes(int)}. */
+    public static ShapeTable syntheticShapeTable(int shapeCount) {
+        try {
+            return ShapeGenerator.generate(new StringReader(syntheticShapes(shapeCount)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Program parseText(String text) {
+        try {
+            byte[] source = text.getBytes(StandardCharsets.UTF_8);
+            return new Parser(ModernTokenReader.tokenize(new ByteArrayInputStream(source))).parse();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** A default configuration. The source file is only a placeholder, it is never read. */
+    public static Configuration configuration(String name) {
+        return Configuration.builder()
+                .sourceFile(new File(name))
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.shapes.ShapeGenerator;
+import org.applecommander.bastools.api.shapes.ShapeTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shape table generation (from source), write and read. Half of the synthetic shapes are bitmaps,
+ * so {@code write} includes the bitmap to vector conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ShapeTableBenchmark {
+    @Param({"1", "32", "255"})
+    public int shapeCount;
+
+    private String source;
+    private ShapeTable shapeTable;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Samples.syntheticShapes(shapeCount);
+        shapeTable = ShapeGenerator.generate(new StringReader(source));
+        data = write();
+    }
+
+    @Benchmark
+    public ShapeTable generate() throws IOException {
+        return ShapeGenerator.generate(new StringReader(source));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        shapeTable.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public ShapeTable read() {
+        return ShapeTable.read(data);
+    }
+}
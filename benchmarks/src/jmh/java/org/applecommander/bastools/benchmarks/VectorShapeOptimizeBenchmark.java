@@ -0,0 +1,62 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.benchmarks;
+
+import org.applecommander.bastools.api.shapes.VectorCommand;
+import org.applecommander.bastools.api.shapes.VectorShape;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code VectorShape.optimize} against the original regex implementation it replaced, over random
+ * shapes that are mostly moves so that the rewrite rules keep finding something to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VectorShapeOptimizeBenchmark {
+    @Param({"64", "1024", "16384"})
+    public int vectorCount;
+
+    private VectorShape shape;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(vectorCount);
+        VectorCommand[] commands = VectorCommand.values();
+        shape = new VectorShape();
+        for (int i = 0; i < vectorCount; i++) {
+            shape.append(commands[random.nextInt(4) < 3 ? random.nextInt(4) : random.nextInt(8)]);
+        }
+    }
+
+    @Benchmark
+    public VectorShape optimize() {
+        return shape.optimize();
+    }
+
+    @Benchmark
+    public VectorShape optimizeWithRegex() {
+        return shape.optimizeWithRegex();
+    }
+}
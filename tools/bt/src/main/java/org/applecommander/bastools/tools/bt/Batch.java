@@ -0,0 +1,219 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many programs within one JVM. Sources may be given as a directory (all files with the
+ * source extension, recursively: <code>*.bas</code> for text or <code>*.bin</code> for tokenized
+ * programs), a glob (ex: <code>src/**.bas</code>) or a manifest (<code>@files.txt</code>, one entry
+ * per line, <code>#</code> for comments). Each file is compiled on a work-stealing pool and results
+ * are reported in source order.
+ */
+public class Batch {
+    private static final String GLOB_CHARS = "*?[{";
+    /** Source extension of text programs. */
+    public static final String TEXT_EXTENSION = ".bas";
+    /** Source extension of tokenized programs. */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /** Compiles one source into the target file, answering the number of bytes produced. */
+    @FunctionalInterface
+    public interface Task {
+        int compile(File source, File target) throws IOException;
+    }
+
+    /**
+     * A resolved source along with its path relative to the batch root (used for output naming).
+     * The target replaces a <code>.bas</code> or <code>.bin</code> source extension.
+     */
+    public record Source(Path file, Path relative) {
+        public File target(Path outputDir, String extension) {
+            Path dir = outputDir != null ? outputDir : file.toAbsolutePath().getParent();
+            Path name = outputDir != null ? relative : file.getFileName();
+            String filename = name.getFileName().toString();
+            String lowercase = filename.toLowerCase();
+            if (lowercase.endsWith(TEXT_EXTENSION) || lowercase.endsWith(BINARY_EXTENSION)) {
+                filename = filename.substring(0, filename.length()-4);
+            }
+            Path parent = name.getParent();
+            Path target = parent == null ? dir.resolve(filename + extension)
+                                         : dir.resolve(parent).resolve(filename + extension);
+            return target.toFile();
+        }
+    }
+
+    /** The outcome of compiling one source; error is null when successful. */
+    public record Result(Source source, File target, int size, long nanos, Throwable error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Expand all batch specifications into a de-duplicated list of sources. Directories contribute
+     * the files with the given source extension.
+     */
+    public static List<Source> resolve(List<String> specs, String sourceExtension) throws IOException {
+        Map<Path,Source> sources = new LinkedHashMap<>();
+        for (String spec : specs) {
+            for (Source source : resolve(spec, sourceExtension)) {
+                sources.putIfAbsent(source.file().toAbsolutePath().normalize(), source);
+            }
+        }
+        return new ArrayList<>(sources.values());
+    }
+
+    static List<Source> resolve(String spec, String sourceExtension) throws IOException {
+        if (spec.startsWith("@")) {
+            return resolveManifest(Path.of(spec.substring(1)), sourceExtension);
+        }
+        int globAt = indexOfGlob(spec);
+        if (globAt >= 0) {
+            return resolveGlob(spec, globAt);
+        }
+        Path path = Path.of(spec);
+        if (Files.isDirectory(path)) {
+            return walk(path, p -> p.getFileName().toString().toLowerCase().endsWith(sourceExtension));
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Batch source not found: " + spec);
+        }
+        return List.of(new Source(path, path.getFileName()));
+    }
+
+    static List<Source> resolveManifest(Path manifest, String sourceExtension) throws IOException {
+        Path base = Optional.ofNullable(manifest.toAbsolutePath().getParent()).orElse(Path.of("."));
+        List<Source> sources = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) continue;
+            String resolved = new File(entry).isAbsolute() ? entry : base.resolve(entry).toString();
+            sources.addAll(resolve(resolved, sourceExtension));
+        }
+        return sources;
+    }
+
+    static List<Source> resolveGlob(String spec, int globAt) throws IOException {
+        int separatorAt = Math.max(spec.lastIndexOf('/', globAt), spec.lastIndexOf(File.separatorChar, globAt));
+        Path base = separatorAt < 0 ? Path.of(".") : Path.of(spec.substring(0, Math.max(separatorAt, 1)));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + spec.substring(separatorAt+1));
+        if (!Files.isDirectory(base)) {
+            throw new IOException("Batch source not found: " + spec);
+        }
+        return walk(base, p -> matcher.matches(base.relativize(p)));
+    }
+
+    static int indexOfGlob(String spec) {
+        for (int i=0; i<spec.length(); i++) {
+            if (GLOB_CHARS.indexOf(spec.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+
+    static List<Source> walk(Path base, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(filter)
+                        .sorted()
+                        .map(p -> new Source(p, base.relativize(p)))
+                        .toList();
+        }
+    }
+
+    /**
+     * Compile all sources on a work-stealing pool of the given parallelism. Each file is reported
+     * (in source order) as it finishes, followed by a summary line.
+     */
+    public static List<Result> run(List<Source> sources, Path outputDir, String extension, int jobs,
+                                   Task task, PrintStream out, PrintStream err) {
+        long start = System.nanoTime();
+        List<Result> results = new ArrayList<>();
+        ExecutorService pool = Executors.newWorkStealingPool(jobs);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Source source : sources) {
+                futures.add(pool.submit(() -> compile(source, source.target(outputDir, extension), task)));
+            }
+            for (Future<Result> future : futures) {
+                Result result = join(future);
+                results.add(result);
+                if (result.isSuccess()) {
+                    out.printf("%s -> %s (%d bytes, %.1f ms)\n", result.source().file(), result.target(),
+                            result.size(), millis(result.nanos()));
+                } else {
+                    err.printf("%s: Error: %s\n", result.source().file(), Main.errorMessage(result.error()));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        long failed = results.stream().filter(r -> !r.isSuccess()).count();
+        long cumulative = results.stream().mapToLong(Result::nanos).sum();
+        out.printf("Batch: %d files, %d succeeded, %d failed in %.1f ms (%.1f ms cumulative, %d workers)\n",
+                results.size(), results.size()-failed, failed, millis(elapsed), millis(cumulative), jobs);
+        return results;
+    }
+
+    static Result compile(Source source, File target, Task task) {
+        long start = System.nanoTime();
+        try {
+            if (target.getCanonicalFile().equals(source.file().toFile().getCanonicalFile())) {
+                throw new IOException("Output would overwrite the source: " + target);
+            }
+            File parent = target.getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            int size = task.compile(source.file().toFile(), target);
+            return new Result(source, target, size, System.nanoTime() - start, null);
+        } catch (Throwable t) {
+            return new Result(source, target, 0, System.nanoTime() - start, t);
+        }
+    }
+
+    static Result join(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
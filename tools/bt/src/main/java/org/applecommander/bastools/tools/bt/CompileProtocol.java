@@ -0,0 +1,202 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The wire format between the compile server and its client. A connection carries any number of
+ * request/response pairs; every message starts with a magic number and sizes are written up front.
+ * Sizes are checked when read, so a malformed message fails with an {@link IOException} instead of
+ * an oversized allocation.
+ */
+public class CompileProtocol {
+    private static final int REQUEST = 0x42545251;  // "BTRQ"
+    private static final int RESPONSE = 0x42545253; // "BTRS"
+    /** Largest source or program accepted; far beyond anything that fits in an Apple II. */
+    static final int MAX_LENGTH = 16 * 1024 * 1024;
+    /** Largest number of optimizations, line addresses or diagnostics accepted. */
+    static final int MAX_COUNT = 65536;
+
+    private CompileProtocol() { /* Prevent construction */ }
+
+    public enum Tokenizer { MODERN, CLASSIC, PRESERVE, BINARY }
+
+    /**
+     * A compile request. The source name is resolved on the server, which is local, so directives
+     * find their files; the source itself travels with the request (text or a tokenized program).
+     */
+    public record Request(String sourceName, byte[] source, Tokenizer tokenizer, int address, int maxLineLength,
+                          List<String> optimizations, boolean wrapper, boolean debug) {
+        public void write(DataOutputStream out) throws IOException {
+            out.writeInt(REQUEST);
+            out.writeUTF(sourceName);
+            out.writeInt(source.length);
+            out.write(source);
+            out.writeUTF(tokenizer.name());
+            out.writeInt(address);
+            out.writeInt(maxLineLength);
+            out.writeInt(optimizations.size());
+            for (String optimization : optimizations) {
+                out.writeUTF(optimization);
+            }
+            out.writeBoolean(wrapper);
+            out.writeBoolean(debug);
+            out.flush();
+        }
+
+        /** Read the next request; answers null when the client has closed the connection. */
+        public static Request read(DataInputStream in) throws IOException {
+            int magic;
+            try {
+                magic = in.readInt();
+            } catch (EOFException ex) {
+                return null;
+            }
+            expect(REQUEST, magic);
+            String sourceName = in.readUTF();
+            byte[] source = readBytes(in);
+            Tokenizer tokenizer = readTokenizer(in);
+            int address = in.readInt();
+            int maxLineLength = in.readInt();
+            int count = readCount(in);
+            List<String> optimizations = new ArrayList<>(count);
+            for (int i=0; i<count; i++) {
+                optimizations.add(in.readUTF());
+            }
+            boolean wrapper = in.readBoolean();
+            boolean debug = in.readBoolean();
+            return new Request(sourceName, source, tokenizer, address, maxLineLength, optimizations, wrapper, debug);
+        }
+    }
+
+    /** The compile result; on failure there is no data and the diagnostics say why. */
+    public record Response(boolean success, byte[] data, Map<Integer,Integer> lineAddresses, List<String> diagnostics) {
+        public void write(DataOutputStream out) throws IOException {
+            out.writeInt(RESPONSE);
+            out.writeBoolean(success);
+            out.writeInt(data.length);
+            out.write(data);
+            out.writeInt(lineAddresses.size());
+            for (Map.Entry<Integer,Integer> entry : lineAddresses.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(diagnostics.size());
+            for (String diagnostic : diagnostics) {
+                out.writeUTF(diagnostic);
+            }
+            out.flush();
+        }
+
+        public static Response read(DataInputStream in) throws IOException {
+            expect(RESPONSE, in.readInt());
+            boolean success = in.readBoolean();
+            byte[] data = readBytes(in);
+            int count = readCount(in);
+            Map<Integer,Integer> lineAddresses = new TreeMap<>();
+            for (int i=0; i<count; i++) {
+                lineAddresses.put(in.readInt(), in.readInt());
+            }
+            count = readCount(in);
+            List<String> diagnostics = new ArrayList<>(count);
+            for (int i=0; i<count; i++) {
+                diagnostics.add(in.readUTF());
+            }
+            return new Response(success, data, lineAddresses, diagnostics);
+        }
+
+        /** A failed response carrying only the error message. */
+        public static Response error(Throwable t) {
+            return new Response(false, new byte[0], Map.of(), List.of("Error: " + Main.errorMessage(t)));
+        }
+    }
+
+    /**
+     * Decode a server address: <code>unix:&lt;path&gt;</code> for a Unix-domain socket or
+     * <code>&lt;port&gt;</code> for loopback TCP. Only local addresses are supported.
+     */
+    public static SocketAddress address(String spec) {
+        if (spec.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(spec.substring(5));
+        }
+        String port = spec.startsWith("localhost:") ? spec.substring(10) : spec;
+        try {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expecting 'unix:<path>' or a port number but found: " + spec);
+        }
+    }
+
+    public static StandardProtocolFamily family(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress) {
+            return StandardProtocolFamily.UNIX;
+        } else if (address instanceof InetSocketAddress inet && inet.getAddress() instanceof Inet6Address) {
+            return StandardProtocolFamily.INET6;
+        }
+        return StandardProtocolFamily.INET;
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException(String.format("Invalid length %d (expecting 0 to %d)", length, MAX_LENGTH));
+        }
+        byte[] data = in.readNBytes(length);
+        if (data.length != length) {
+            throw new EOFException(String.format("Expecting %d bytes but only %d arrived", length, data.length));
+        }
+        return data;
+    }
+
+    static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException(String.format("Invalid count %d (expecting 0 to %d)", count, MAX_COUNT));
+        }
+        return count;
+    }
+
+    static Tokenizer readTokenizer(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        try {
+            return Tokenizer.valueOf(name);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Unknown tokenizer: " + name);
+        }
+    }
+
+    static void expect(int expected, int actual) throws IOException {
+        if (expected != actual) {
+            throw new IOException(String.format("Unexpected message type %08x", actual));
+        }
+    }
+}
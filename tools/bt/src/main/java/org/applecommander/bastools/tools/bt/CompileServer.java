@@ -0,0 +1,210 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.applecommander.bastools.api.ClassicTokenReader;
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.Detokenizer;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Optimization;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.Visitors;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.utils.AssetCache;
+import org.applecommander.bastools.api.visitors.ByteVisitor;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Request;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Response;
+
+/**
+ * A local compile service so build tools can skip JVM startup for every program. Each connection
+ * is served on a virtual thread; the number of compiles running at once is bounded.
+ */
+public class CompileServer {
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final SocketAddress address;
+    private final Semaphore permits;
+    private final PrintStream log;
+
+    public CompileServer(SocketAddress address, int concurrency, PrintStream log) {
+        this.address = address;
+        this.permits = new Semaphore(concurrency);
+        this.log = log;
+    }
+
+    /** Accept connections until the process is stopped (or the serving thread is interrupted). */
+    public void serve() throws IOException {
+        boolean bound = false;
+        try (ServerSocketChannel server = ServerSocketChannel.open(CompileProtocol.family(address));
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (address instanceof UnixDomainSocketAddress unix) {
+                deleteStaleSocket(unix);
+            }
+            server.bind(address);
+            bound = true;
+            log.printf("Listening on %s\n", server.getLocalAddress());
+            while (server.isOpen()) {
+                SocketChannel channel = server.accept();
+                executor.submit(() -> handle(channel));
+            }
+        } finally {
+            if (bound && address instanceof UnixDomainSocketAddress unix) {
+                Files.deleteIfExists(unix.getPath());
+            }
+        }
+    }
+
+    /**
+     * A stale socket file is left behind if a prior server was killed. Only a socket that nothing
+     * is listening on is removed; any other file is left alone.
+     */
+    static void deleteStaleSocket(UnixDomainSocketAddress unix) throws IOException {
+        Path path = unix.getPath();
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (!isSocket(path)) {
+            throw new IOException(String.format("%s exists and is not a socket", path));
+        }
+        try {
+            SocketChannel.open(unix).close();
+        } catch (ConnectException ex) {
+            Files.delete(path);
+            return;
+        }
+        throw new IOException(String.format("A server is already listening on %s", path));
+    }
+
+    static boolean isSocket(Path path) throws IOException {
+        if (path.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & S_IFMT) == S_IFSOCK;
+        }
+        // Without the file type, settle for "not a regular file, directory or link"
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+    }
+
+    void handle(SocketChannel channel) {
+        try (channel;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            Request request;
+            while ((request = read(in, out)) != null) {
+                permits.acquire();
+                try {
+                    compile(request).write(out);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.printf("Connection failed: %s\n", Main.errorMessage(ex));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the next request. A malformed request is answered with an error response; the rest of
+     * the connection cannot be trusted, so it fails afterwards.
+     */
+    static Request read(DataInputStream in, DataOutputStream out) throws IOException {
+        try {
+            return Request.read(in);
+        } catch (IOException ex) {
+            Response.error(ex).write(out);
+            throw ex;
+        }
+    }
+
+    /** Compile one request; failures are reported in the response. */
+    public static Response compile(Request request) {
+        ByteArrayOutputStream debug = new ByteArrayOutputStream();
+        try {
+            List<Optimization> optimizations = request.optimizations().stream().map(Optimization::valueOf).toList();
+            boolean preserveNumbers = request.tokenizer() == CompileProtocol.Tokenizer.PRESERVE
+                    || request.tokenizer() == CompileProtocol.Tokenizer.BINARY
+                    || optimizations.contains(Optimization.SHORTEN_NUMBERS);
+            Configuration.Builder builder = Configuration.builder()
+                    .sourceFile(new File(request.sourceName()))
+                    .startAddress(request.address())
+                    .maxLineLength(request.maxLineLength())
+                    .preserveNumbers(preserveNumbers)
+                    .assetCache(AssetCache.shared());
+            if (request.debug()) builder.debugStream(new PrintStream(debug, true));
+            Configuration config = builder.build();
+
+            Program program = switch (request.tokenizer()) {
+                case BINARY -> new Detokenizer(ByteBuffer.wrap(request.source())).readAll();
+                case MODERN -> new Parser(ModernTokenReader.tokenize(new StringReader(text(request)))).parse();
+                case CLASSIC, PRESERVE -> new Parser(ClassicTokenReader.tokenize(new StringReader(text(request)))).parse();
+            };
+            program = program.accept(Optimization.pipeline(config, optimizations));
+
+            ByteVisitor byteVisitor = Visitors.byteVisitor(config);
+            byte[] wrapperData = Main.wrapperData(byteVisitor, request.wrapper());
+            byte[] programData = byteVisitor.dump(program);
+            byte[] data = new byte[wrapperData.length + programData.length];
+            System.arraycopy(wrapperData, 0, data, 0, wrapperData.length);
+            System.arraycopy(programData, 0, data, wrapperData.length, programData.length);
+            return new Response(true, data, byteVisitor.getLineAddresses(), diagnostics(debug));
+        } catch (Throwable t) {
+            List<String> diagnostics = diagnostics(debug);
+            diagnostics.addAll(Response.error(t).diagnostics());
+            return new Response(false, new byte[0], Map.of(), diagnostics);
+        }
+    }
+
+    static String text(Request request) {
+        // Same as reading the file locally
+        return new String(request.source(), Charset.defaultCharset());
+    }
+
+    static List<String> diagnostics(ByteArrayOutputStream debug) {
+        return new ArrayList<>(debug.toString().lines().toList());
+    }
+}
@@ -19,11 +19,15 @@ package org.applecommander.bastools.tools.bt;
 
 import io.github.applecommander.applesingle.AppleSingle;
 import org.applecommander.bastools.api.*;
+import org.applecommander.bastools.api.model.Line;
 import org.applecommander.bastools.api.model.Program;
 import org.applecommander.bastools.api.model.Token;
 import org.applecommander.bastools.api.model.Token.Type;
 import org.applecommander.bastools.api.proofreaders.*;
+import org.applecommander.bastools.api.utils.AssetCache;
 import org.applecommander.bastools.api.visitors.ByteVisitor;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Request;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Response;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -32,13 +36,19 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import static picocli.CommandLine.Model.UsageMessageSpec.SECTION_KEY_FOOTER;
@@ -98,19 +108,35 @@ public class Main implements Callable<Integer> {
     @ArgGroup(heading = "%nOptimization:%n")
     private final OptimizationSelection optimizations = new OptimizationSelection();
 
-    @ArgGroup(heading = "%nProof Readers:%n")
+    @ArgGroup(heading = "%nProof Readers (select several for a combined report):%n", exclusive = false)
     private final ProofReaderSelection proofReader = new ProofReaderSelection();
 	
 	@Option(names = "--debug", description = "Print debug output.")
 	private static boolean debugFlag;
-	private PrintStream debug = new PrintStream(new OutputStream() {
-			@Override
-			public void write(int b) {
-				// Do nothing
-			}
-		});
 
-	@Parameters(index = "0", description = "AppleSoft BASIC program to process.")
+	@Option(names = "--batch", paramLabel = "<source>", description = {
+			"Compile many programs in one run; repeatable.",
+			"A directory, a glob (ex: 'src/**.bas') or a manifest (@files.txt)." })
+	private List<String> batchSources = new ArrayList<>();
+
+	@Option(names = "--watch", description = "Watch the source (and any files it embeds) and rebuild the output file on every change.")
+	private boolean watchFlag;
+
+	@Option(names = "--serve", paramLabel = "<address>", description = {
+			"Run a compile server; no source file is needed.",
+			"Listens on 'unix:<path>' or a loopback TCP port." })
+	private String serveAddress;
+
+	@Option(names = "--connect", paramLabel = "<address>", description = "Compile with a running server (see --serve).")
+	private String connectAddress;
+
+	@Option(names = "--output-dir", description = "Batch output directory (default: next to each source).")
+	private File outputDir;
+
+	@Option(names = { "-j", "--jobs" }, description = "Number of batch workers.", showDefaultValue = Visibility.ALWAYS)
+	private int jobs = Runtime.getRuntime().availableProcessors();
+
+	@Parameters(index = "0", arity = "0..1", description = "AppleSoft BASIC program to process.")
 	private File sourceFile;
 	
 	public static void main(String[] args) {
@@ -136,6 +162,7 @@ public class Main implements Callable<Integer> {
                 table.addRowValues("--modern", "ModernTokenReader", "'Modern'", "Rewritten", "Rewritten");
                 table.addRowValues("--classic", "ClassicTokenReader", "Applesoft", "Rewritten", "Preserved");
                 table.addRowValues("--preserve", "ClassicTokenReader", "Applesoft", "Preserved", "Preserved");
+                table.addRowValues("--binary", "Detokenizer", "Tokenized", "Preserved", "Preserved");
                 table.addRowValues("----------", "------------------", "---------", "---------", "---------");
                 pw.print(table);
                 pw.println("  * Parsing: 'Modern' -  spaces between keywords and tokens are important,");
@@ -153,32 +180,85 @@ public class Main implements Callable<Integer> {
 			if (Main.debugFlag) {
 				t.printStackTrace(System.err);
 			} else {
-				String message = t.getMessage();
-				while (t != null) {
-					message = t.getMessage();
-					t = t.getCause();
-				}
-				System.err.printf("Error: %s\n", Optional.ofNullable(message).orElse("An error occurred."));
+				System.err.printf("Error: %s\n", errorMessage(t));
 			}
 			exitCode = 1;
 		}
 		System.exit(exitCode);
 	}
+
+	/** Report the innermost message, which tends to be the most specific. */
+	public static String errorMessage(Throwable t) {
+		String message = t.getMessage();
+		while (t != null) {
+			message = t.getMessage();
+			t = t.getCause();
+		}
+		return Optional.ofNullable(message).orElse("An error occurred.");
+	}
 	
 	@Override
-	public Integer call() throws IOException {
+	public Integer call() throws IOException, InterruptedException {
 		if (checkParameters()) {
-			Configuration.Builder builder = Configuration.builder()
-					.maxLineLength(this.maxLineLength)
-					.sourceFile(this.sourceFile)
-					.startAddress(this.address)
-                    .preserveNumbers(tokenizer.preserveNumbers);
-			if (debugFlag) builder.debugStream(System.out);
-			process(builder.build());
+			if (!batchSources.isEmpty()) {
+				return batch();
+			}
+			if (serveAddress != null) {
+				new CompileServer(CompileProtocol.address(serveAddress), jobs, System.out).serve();
+				return 0;
+			}
+			if (connectAddress != null) {
+				return connect();
+			}
+			if (watchFlag) {
+				return watch();
+			}
+			Configuration config = configure(this.sourceFile);
+			saveResults(config.sourceFile, outputFile, process(config));
 		}
 		
 		return 0;
 	}
+
+	/**
+	 * Each program gets its own configuration as the source file drives $embed resolution.
+	 * Batches and watches compile repeatedly, so they share files read by directives.
+	 */
+	public Configuration configure(File sourceFile) {
+		Configuration.Builder builder = Configuration.builder()
+				.maxLineLength(this.maxLineLength)
+				.sourceFile(sourceFile)
+				.startAddress(this.address)
+                .preserveNumbers(tokenizer.preserveNumbers);
+		if (debugFlag && batchSources.isEmpty()) builder.debugStream(System.out);
+		if (!batchSources.isEmpty() || watchFlag) builder.assetCache(AssetCache.shared());
+		return builder.build();
+	}
+
+	/** Compile all batch sources on a work-stealing pool; answers the exit code. */
+	public int batch() throws IOException {
+		List<Batch.Source> sources = Batch.resolve(batchSources,
+				tokenizer.binary ? Batch.BINARY_EXTENSION : Batch.TEXT_EXTENSION);
+		if (sources.isEmpty()) {
+			System.err.println("No programs found to process.");
+			return 1;
+		}
+		Path outputPath = outputDir == null ? null : outputDir.toPath();
+		String extension = applesingleFlag ? ".as" : ".bin";
+		List<Batch.Result> results = Batch.run(sources, outputPath, extension, jobs, (source, target) -> {
+				byte[] data = process(configure(source));
+				saveResults(source, target, data);
+				return data.length;
+			}, System.out, System.err);
+		AssetCache.Stats assets = AssetCache.shared().stats();
+		if (assets.requests() > 0) {
+			System.out.printf("Assets: %s\n", assets);
+		}
+		if (debugFlag) {
+			results.stream().filter(r -> !r.isSuccess()).forEach(r -> r.error().printStackTrace(System.err));
+		}
+		return results.stream().allMatch(Batch.Result::isSuccess) ? 0 : 1;
+	}
 	
 	/** A basic test to ensure parameters are somewhat sane. */
 	public boolean checkParameters() {
@@ -186,8 +266,23 @@ public class Main implements Callable<Integer> {
 		if (optimizations.selected.contains(Optimization.SHORTEN_NUMBERS)) {
 			tokenizer.preserveNumbers = true;
 		}
+		if (serveAddress != null) {
+			return checkServeParameters();
+		} else if (!batchSources.isEmpty()) {
+			return checkBatchParameters();
+		} else if (sourceFile == null) {
+			System.err.println("Please supply a program to process (or use --batch).");
+			return false;
+		} else if (outputDir != null) {
+			System.err.println("The --output-dir option only applies to --batch.");
+			return false;
+		} else if (watchFlag) {
+			return checkWatchParameters();
+		} else if (connectAddress != null) {
+			return checkConnectParameters();
+		}
 		boolean hasTextOutput = hexFormat || copyFormat || prettyPrint || listPrint || showTokens || showVariableReport 
-				|| debugFlag || showLineAddresses || proofReader.proofReaderFn != null;
+				|| debugFlag || showLineAddresses || proofReader.isSelected();
 		if (stdoutFlag && hasTextOutput) {
 			System.err.println("The pipe option blocks any other stdout options.");
 			return false;
@@ -198,19 +293,213 @@ public class Main implements Callable<Integer> {
 		return true;
 	}
 	
-	/** General CLI processing. */
-	public void process(Configuration config) throws IOException {
-		Queue<Token> tokens = tokenizer.tokenizerFn.apply(sourceFile);
-		if (showTokens) {
-			tokens.forEach(t -> System.out.printf("%s%s", t, t.type() == Type.EOL ? "\n" : ", "));
+	/** Batch output is written per file and reported as a whole; text output would be interleaved. */
+	public boolean checkBatchParameters() {
+		boolean hasTextOutput = hexFormat || copyFormat || prettyPrint || listPrint || showTokens || showVariableReport
+				|| showLineAddresses || proofReader.isSelected();
+		if (sourceFile != null || outputFile != null || stdoutFlag || watchFlag) {
+			System.err.println("The --batch option replaces the source file, --output, --stdout and --watch options.");
+			return false;
+		} else if (hasTextOutput) {
+			System.err.println("The --batch option only generates binary output.");
+			return false;
+		} else if (jobs < 1) {
+			System.err.println("Please use at least one batch worker.");
+			return false;
+		} else if (tokenizer.binary && outputDir == null && !applesingleFlag) {
+			System.err.println("With --binary, the --batch output would replace each source; please use --output-dir.");
+			return false;
+		}
+		return true;
+	}
+	
+	/** The server takes everything from its requests. */
+	public boolean checkServeParameters() {
+		if (sourceFile != null || !batchSources.isEmpty() || watchFlag || connectAddress != null) {
+			System.err.println("The --serve option does not compile anything by itself.");
+			return false;
+		} else if (jobs < 1) {
+			System.err.println("Please allow at least one concurrent compile.");
+			return false;
 		}
-		Parser parser = new Parser(tokens);
-		Program program = parser.parse();
-		
-		for (Optimization optimization : optimizations.selected) {
-			debug.printf("Optimization: %s\n", optimization.name());
-			program = program.accept(optimization.create(config));
+		return true;
+	}
+
+	/** Only the generated bytes come back from the server; options that need the program are not available. */
+	public boolean checkConnectParameters() {
+		boolean needsProgram = prettyPrint || listPrint || showTokens || showVariableReport || proofReader.isSelected();
+		boolean hasTextOutput = hexFormat || copyFormat || showLineAddresses || debugFlag;
+		if (needsProgram) {
+			System.err.println("The --connect option does not support listings, tokens, variables or proofreaders.");
+			return false;
+		} else if (stdoutFlag && hasTextOutput) {
+			System.err.println("The pipe option blocks any other stdout options.");
+			return false;
+		} else if (!(stdoutFlag || hasTextOutput || outputFile != null)) {
+			System.err.println("What do you want to do?");
+			return false;
 		}
+		return true;
+	}
+
+	/** Send the program to a compile server and handle the output as if it was compiled here. */
+	public int connect() throws IOException {
+		Request request = new Request(sourceFile.getAbsolutePath(), Files.readAllBytes(sourceFile.toPath()),
+				tokenizer.type, address, maxLineLength,
+				optimizations.selected.stream().map(Enum::name).toList(), wrapProgram, debugFlag);
+		Response response;
+		try (SocketChannel channel = SocketChannel.open(CompileProtocol.address(connectAddress));
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+			request.write(out);
+			response = Response.read(in);
+		}
+		response.diagnostics().forEach(System.err::println);
+		if (!response.success()) {
+			return 1;
+		}
+		byte[] data = response.data();
+		if (showLineAddresses) {
+			response.lineAddresses().forEach((l,a) -> System.out.printf("%5d ... $%04x\n", l, a));
+		}
+		if (hexFormat) {
+			HexDumper.standard().dump(address, data);
+		}
+		if (copyFormat) {
+			HexDumper.apple2().dump(address, data);
+		}
+		saveResults(sourceFile, outputFile, data);
+		return 0;
+	}
+
+	/** Watch mode rewrites the output file on every change and only reports timings. */
+	public boolean checkWatchParameters() {
+		boolean hasTextOutput = hexFormat || copyFormat || prettyPrint || listPrint || showTokens || showVariableReport
+				|| showLineAddresses || proofReader.isSelected();
+		if (outputFile == null || stdoutFlag || hasTextOutput) {
+			System.err.println("The --watch option requires --output and does not support any stdout options.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Rebuild whenever the source or a file it references changes. The configuration, wrapper and
+	 * compiled lines stay warm between builds; without optimizations, only changed lines are recompiled.
+	 */
+	public int watch() throws IOException, InterruptedException {
+		Configuration config = configure(sourceFile);
+		byte[] wrapperData = wrapperData(Visitors.byteVisitor(config), wrapProgram);
+		IncrementalCompiler incremental = null;
+		if (optimizations.selected.isEmpty() && !tokenizer.binary) {
+			// The program follows the wrapper in memory
+			Configuration programConfig = Configuration.builder()
+					.maxLineLength(this.maxLineLength)
+					.sourceFile(sourceFile)
+					.startAddress(this.address + wrapperData.length)
+					.preserveNumbers(tokenizer.preserveNumbers)
+					.assetCache(config.assetCache)
+					.build();
+			incremental = new IncrementalCompiler(programConfig, tokenizer.classic);
+		}
+		final IncrementalCompiler compiler = incremental;
+		Watcher.Builder builder = () -> {
+			Watcher.Phases phases = new Watcher.Phases();
+			byte[] programData;
+			List<Token> tokens = new ArrayList<>();
+			String detail = "";
+			if (compiler != null) {
+				IncrementalCompiler.Result result = compiler.compile();
+				phases.mark("compile");
+				result.tokens().forEach(tokens::addAll);
+				programData = result.bytes();
+				detail = String.format(", %d of %d lines reused", result.reused(), result.reused() + result.compiled());
+			} else {
+				Program program;
+				if (tokenizer.binary) {
+					program = Detokenizer.read(sourceFile);
+					phases.mark("read");
+				} else {
+					Queue<Token> queue = tokenizer.tokenizerFn.apply(sourceFile);
+					tokens.addAll(queue);
+					phases.mark("tokenize");
+					program = new Parser(queue).parse();
+					phases.mark("parse");
+				}
+				program = program.accept(Optimization.pipeline(config, optimizations.selected));
+				phases.mark("optimize");
+				ByteVisitor byteVisitor = Visitors.byteVisitor(config);
+				wrapperData(byteVisitor, wrapProgram);
+				programData = byteVisitor.dump(program);
+				phases.mark("emit");
+			}
+			byte[] data = new byte[wrapperData.length + programData.length];
+			System.arraycopy(wrapperData, 0, data, 0, wrapperData.length);
+			System.arraycopy(programData, 0, data, wrapperData.length, programData.length);
+			saveResults(sourceFile, outputFile, data);
+			phases.mark("write");
+			String description = String.format("Built %s (%d bytes%s)", outputFile, data.length, detail);
+			return new Watcher.Build(description, phases.get(), dependencies(sourceFile, tokens));
+		};
+		new Watcher(builder, sourceFile.toPath(), System.out, System.err).watch();
+		return 0;
+	}
+
+	/** Files referenced by directives; any string that follows a directive and names a file counts. */
+	public static Set<Path> dependencies(File sourceFile, List<Token> tokens) {
+		Set<Path> dependencies = new HashSet<>();
+		dependencies.add(sourceFile.toPath());
+		File directory = sourceFile.getAbsoluteFile().getParentFile();
+		boolean directive = false;
+		for (Token token : tokens) {
+			if (token.type() == Type.DIRECTIVE) {
+				directive = true;
+			} else if (token.type() == Type.EOL) {
+				directive = false;
+			} else if (directive && token.type() == Type.STRING) {
+				File file = new File(directory, token.text());
+				if (file.isFile()) {
+					dependencies.add(file.toPath());
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	/** The DOS 3.3 wrapper program; empty unless requested. This moves the visitor past the wrapper. */
+	public static byte[] wrapperData(ByteVisitor byteVisitor, boolean wrapProgram) {
+		if (!wrapProgram) {
+			return new byte[0];
+		}
+		try {
+			Queue<Token> wrapperTokens = ModernTokenReader.tokenize(new ByteArrayInputStream(
+					"10 POKE 103,24:POKE 104,8:RUN".getBytes()));
+			Parser wrapperParser = new Parser(wrapperTokens);
+			Program wrapperProgram = wrapperParser.parse();
+			return byteVisitor.dump(wrapperProgram);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/** General CLI processing; answers the (possibly wrapped) program. */
+	public byte[] process(Configuration config) throws IOException {
+		Program program;
+		if (tokenizer.binary) {
+			program = Detokenizer.read(config.sourceFile);
+			if (showTokens) {
+				program.lines.forEach(this::showTokens);
+			}
+		} else {
+			Queue<Token> tokens = tokenizer.tokenizerFn.apply(config.sourceFile);
+			if (showTokens) {
+				tokens.forEach(t -> System.out.printf("%s%s", t, t.type() == Type.EOL ? "\n" : ", "));
+			}
+			Parser parser = new Parser(tokens);
+			program = parser.parse();
+		}
+		
+		program = program.accept(Optimization.pipeline(config, optimizations.selected));
 
 		if (prettyPrint || listPrint) {
 			program.accept(Visitors.printBuilder(config).prettyPrint(prettyPrint).build());
@@ -218,19 +507,12 @@ public class Main implements Callable<Integer> {
 		if (showVariableReport) {
 			program.accept(Visitors.variableReportVisitor());
 		}
-        if (proofReader.proofReaderFn != null) {
-            proofReader.proofReaderFn.accept(config, program);
+        if (proofReader.isSelected()) {
+            proofReader.apply(config, program);
         }
 
 		ByteVisitor byteVisitor = Visitors.byteVisitor(config);
-		byte[] wrapperData = new byte[0];
-		if (wrapProgram) {
-			Queue<Token> wrapperTokens = ModernTokenReader.tokenize(new ByteArrayInputStream(
-					"10 POKE 103,24:POKE 104,8:RUN".getBytes()));
-			Parser wrapperParser = new Parser(wrapperTokens);
-			Program wrapperProgram = wrapperParser.parse();
-			wrapperData = byteVisitor.dump(wrapperProgram);
-		}
+		byte[] wrapperData = wrapperData(byteVisitor, wrapProgram);
 
 		byte[] programData = byteVisitor.dump(program);
 		if (showLineAddresses) {
@@ -251,10 +533,20 @@ public class Main implements Callable<Integer> {
 			HexDumper.apple2().dump(address, data);
 		}
 
-		saveResults(data);
+		return data;
+	}
+	
+	/** Show the tokens of a line much like the tokenizers would have produced them. */
+	public void showTokens(Line line) {
+		System.out.printf("%s, ", Token.number(line.lineNumber, (double) line.lineNumber));
+		for (int i=0; i<line.statements.size(); i++) {
+			if (i > 0) System.out.printf("%s, ", Token.syntax(line.lineNumber, ':'));
+			line.statements.get(i).tokens.forEach(t -> System.out.printf("%s, ", t));
+		}
+		System.out.println(Token.eol(line.lineNumber));
 	}
 	
-	public void saveResults(byte[] data) throws IOException {
+	public void saveResults(File sourceFile, File outputFile, byte[] data) throws IOException {
 		if (applesingleFlag) {
 			String realName = null;
 			if (sourceFile != null) {
@@ -292,23 +584,43 @@ public class Main implements Callable<Integer> {
     public static class TokenizerSelection {
         Function<File,Queue<Token>> tokenizerFn = this::modernTokenizer;
         boolean preserveNumbers = false;
+        boolean classic = false;
+        boolean binary = false;
+        CompileProtocol.Tokenizer type = CompileProtocol.Tokenizer.MODERN;
 
         @Option(names = "--modern", description = "Select modern tokenizer (default)")
         public void selectModernTokenizer(boolean flag) {
             this.tokenizerFn = this::modernTokenizer;
             this.preserveNumbers = false;
+            this.classic = false;
+            this.binary = false;
+            this.type = CompileProtocol.Tokenizer.MODERN;
         }
 
         @Option(names = "--classic", description = "Select classic tokenizer")
         public void selectClassicTokenizer(boolean flag) {
             this.tokenizerFn = this::classicTokenizer;
             this.preserveNumbers = false;
+            this.classic = true;
+            this.binary = false;
+            this.type = CompileProtocol.Tokenizer.CLASSIC;
         }
 
         @Option(names = "--preserve", description = "Select classic tokenizer with number preservation")
         public void selectPreserveTokenizer(boolean flag) {
             this.tokenizerFn = this::classicTokenizer;
             this.preserveNumbers = true;
+            this.classic = true;
+            this.binary = false;
+            this.type = CompileProtocol.Tokenizer.PRESERVE;
+        }
+
+        @Option(names = "--binary", description = "Read a tokenized program (ex: extracted from a disk image)")
+        public void selectDetokenizer(boolean flag) {
+            this.binary = true;
+            this.classic = false;
+            this.preserveNumbers = true;
+            this.type = CompileProtocol.Tokenizer.BINARY;
         }
 
         Queue<Token> modernTokenizer(File file) {
@@ -347,54 +659,59 @@ public class Main implements Callable<Integer> {
     }
 
     public static class ProofReaderSelection {
-        BiConsumer<Configuration,Program> proofReaderFn;
+        private final Map<String,Function<Configuration,LineProofReader>> selected = new LinkedHashMap<>();
+
+        @Option(names = "--report-format", converter = ReportFormat.Converter.class, paramLabel = "<format>",
+                description = "Proofreader report format: ${COMPLETION-CANDIDATES} (default: text)")
+        private ReportFormat format;
+
+        private void select(String name, Function<Configuration,LineProofReader> factory) {
+            selected.put(name, factory);
+        }
+
+        boolean isSelected() {
+            return !selected.isEmpty();
+        }
+
+        /**
+         * Run all selected proofreaders together over one rendering of the program and write the
+         * combined report in the requested format. The text format matches what each proofreader
+         * prints on its own.
+         */
+        void apply(Configuration config, Program program) throws IOException {
+            List<LineProofReader> proofReaders = selected.values().stream().map(f -> f.apply(config)).toList();
+            MultiplexedProofReader.Report report = new MultiplexedProofReader(config, proofReaders).addProgram(program);
+            Optional.ofNullable(format).orElse(ReportFormat.TEXT).write(report, config.sourceFile.getName(), System.out);
+        }
 
         @Option(names = "--checkit", description = "Apply Nibble Checkit (ca 1988) to code")
         public void selectNibbleCheckit(boolean flag) {
-            this.proofReaderFn = (c,p) -> {
-				NibbleCheckit proofreader = new NibbleCheckit(c);
-				proofreader.addProgram(p);
-			};
+            select("checkit", NibbleCheckit::new);
         }
 
         @Option(names = "--proofreader", description = "Apply Compute! Apple Automatic Proofreader (ca 1985) to code")
         public void selectComputeProofreader(boolean flag) {
-            this.proofReaderFn = (c,p) -> {
-				ComputeAutomaticProofreader proofreader = new ComputeAutomaticProofreader(c);
-				proofreader.addProgram(p);
-			};
+            select("proofreader", ComputeAutomaticProofreader::new);
         }
 
         @Option(names = "--apple-checker", description = "Apply Nibble Apple Checker 3.0 (ca 1982) to code")
         public void selectNibbleAppleChecker(boolean flag) {
-            this.proofReaderFn = (c,p) -> {
-				NibbleAppleChecker proofreader = new NibbleAppleChecker(c);
-				proofreader.addProgram(p);
-			};
+            select("apple-checker", NibbleAppleChecker::new);
         }
 
         @Option(names = { "--key-perfect-2", "--kp2" }, description = "Apply MicroSPARC Key Perfect V2 (ca 1981) to code")
         public void selectKeyPerfectV2(boolean flag) {
-            this.proofReaderFn = (c,p) -> {
-				MicrosparcKeyPerfect2 proofreader = new MicrosparcKeyPerfect2(c);
-				proofreader.addProgram(p);
-			};
+            select("kp2", MicrosparcKeyPerfect2::new);
         }
 
         @Option(names = { "--key-perfect-4", "--kp4" }, description = "Apply MicroSPARC Key Perfect V4 (ca 1981) to code")
         public void selectKeyPerfectV4(boolean flag) {
-            this.proofReaderFn = (c,p) -> {
-				MicrosparcKeyPerfect4 proofreader = new MicrosparcKeyPerfect4(c);
-				proofreader.addProgram(p);
-			};
+            select("kp4", MicrosparcKeyPerfect4::new);
         }
 
-		@Option(names = { "--key-perfect-5", "--kp5" }, description = "Apply MicroSPARC Key Perfect V5 (ca 1985) to code")
-		public void selectKeyPerfectV5(boolean flag) {
-			this.proofReaderFn = (c,p) -> {
-				MicrosparcKeyPerfect5 proofreader = new MicrosparcKeyPerfect5(c);
-				proofreader.addProgram(p);
-			};
-		}
+        @Option(names = { "--key-perfect-5", "--kp5" }, description = "Apply MicroSPARC Key Perfect V5 (ca 1985) to code")
+        public void selectKeyPerfectV5(boolean flag) {
+            select("kp5", MicrosparcKeyPerfect5::new);
+        }
     }
 }
@@ -0,0 +1,289 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.applecommander.bastools.api.proofreaders.MicrosparcKeyPerfect2;
+import org.applecommander.bastools.api.proofreaders.MultiplexedProofReader.Report;
+import org.applecommander.bastools.api.proofreaders.MultiplexedProofReader.Row;
+import org.applecommander.bastools.api.proofreaders.MultiplexedProofReader.Total;
+import org.applecommander.bastools.api.proofreaders.ProofReaderValue;
+import picocli.CommandLine.ITypeConverter;
+
+/** Renders a proofreader report. Values are written as displayed by the original proofreader. */
+public enum ReportFormat {
+    /**
+     * Each proofreader in turn, laid out as that proofreader prints on its own (see the
+     * {@code addProgram} methods), separated by a blank line.
+     */
+    TEXT {
+        @Override
+        public void write(Report report, String sourceName, Writer out) throws IOException {
+            String separator = "";
+            for (String name : report.proofReaders()) {
+                out.write(separator);
+                switch (name) {
+                    case "CHECKIT" -> {
+                        out.write("Nibble Checkit, Copyright 1988, Microsparc Inc.\n");
+                        writeLines(report, name, out);
+                        writeTotal(report, name, "TOTAL", "TOTAL: %s\n", out);
+                    }
+                    case "COMPUTE" -> {
+                        out.write("Compute! Apple Automatic Proofreader, Copyright 1985\n");
+                        writeLines(report, name, out);
+                    }
+                    case "APPLE-CHECKER" -> {
+                        out.write(String.format("On: %s\nType: A\n\n", sourceName));
+                        writeTotal(report, name, "LENGTH", "Length: %s\n", out);
+                        writeTotal(report, name, "CHECKSUM", "Checksum: %s\n", out);
+                    }
+                    case "KP2" -> writeGroups(report, name, "CODE-2.0",
+                            value -> "     " + MicrosparcKeyPerfect2.format((int) value.value()), out);
+                    case "KP4" -> writeGroups(report, name, "CODE-4.0",
+                            value -> "     " + MicrosparcKeyPerfect2.format((int) value.value()), out);
+                    case "KP5" -> writeGroups(report, name, "CODE-5.0", value -> "   " + value.text(), out);
+                    default -> {
+                        out.write(name);
+                        out.write('\n');
+                        writeLines(report, name, out);
+                        for (Total total : report.totals()) {
+                            if (name.equals(total.proofReader())) {
+                                out.write(String.format("%s: %s\n", total.label(), total.value().text()));
+                            }
+                        }
+                    }
+                }
+                separator = "\n";
+            }
+        }
+        /** Every line with a value, as "value | text". */
+        private void writeLines(Report report, String name, Writer out) throws IOException {
+            for (Row row : report.rows()) {
+                ProofReaderValue value = row.values().get(name);
+                if (value != null) {
+                    out.write(value.text());
+                    out.write(" | ");
+                    out.write(row.text());
+                    out.write('\n');
+                }
+            }
+        }
+        private void writeTotal(Report report, String name, String label, String format, Writer out) throws IOException {
+            Optional<ProofReaderValue> value = report.total(name, label);
+            if (value.isPresent()) {
+                out.write(String.format(format, value.get().text()));
+            }
+        }
+        /** Key Perfect reports a value per group of lines (on the last line of the group) and a program total. */
+        private void writeGroups(Report report, String name, String heading, Function<ProofReaderValue,String> format,
+                                 Writer out) throws IOException {
+            out.write("Line# - Line#   " + heading + "\n");
+            out.write("-------------   --------\n");
+            Integer first = null;
+            for (Row row : report.rows()) {
+                if (first == null) first = row.lineNumber();
+                ProofReaderValue value = row.values().get(name);
+                if (value != null) {
+                    out.write(String.format("%5d - %5d", first, row.lineNumber()));
+                    out.write(format.apply(value));
+                    out.write('\n');
+                    first = null;
+                }
+            }
+            Optional<ProofReaderValue> total = report.total(name, "PROGRAM TOTAL");
+            if (total.isPresent()) {
+                out.write("PROGRAM TOTAL");
+                out.write(format.apply(total.get()));
+                out.write('\n');
+            }
+        }
+    },
+    /** A column per proofreader followed by the listing, then the program totals. */
+    TABLE {
+        @Override
+        public void write(Report report, String sourceName, Writer out) throws IOException {
+            List<String> names = report.proofReaders();
+            List<Integer> widths = new ArrayList<>();
+            for (String name : names) {
+                int width = name.length();
+                for (Row row : report.rows()) {
+                    width = Math.max(width, text(row, name).length());
+                }
+                widths.add(width);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                pad(out, names.get(i), widths.get(i));
+            }
+            out.write("| LINE\n");
+            for (int width : widths) {
+                out.write("-".repeat(width));
+                out.write(' ');
+            }
+            out.write("+-----\n");
+            for (Row row : report.rows()) {
+                for (int i = 0; i < names.size(); i++) {
+                    pad(out, text(row, names.get(i)), widths.get(i));
+                }
+                out.write("| ");
+                out.write(row.text());
+                out.write('\n');
+            }
+            out.write('\n');
+            for (Total total : report.totals()) {
+                out.write(String.format("%s %s: %s\n", total.proofReader(), total.label(), total.value().text()));
+            }
+        }
+        private void pad(Writer out, String value, int width) throws IOException {
+            out.write(value);
+            out.write(" ".repeat(width - value.length() + 1));
+        }
+    },
+    /** One record per line; totals follow with the label in the text column. */
+    CSV {
+        @Override
+        public void write(Report report, String sourceName, Writer out) throws IOException {
+            List<String> names = report.proofReaders();
+            out.write("line,text");
+            for (String name : names) {
+                out.write(',');
+                out.write(csv(name));
+            }
+            out.write('\n');
+            for (Row row : report.rows()) {
+                out.write(Integer.toString(row.lineNumber()));
+                out.write(',');
+                out.write(csv(row.text()));
+                for (String name : names) {
+                    out.write(',');
+                    out.write(csv(text(row, name)));
+                }
+                out.write('\n');
+            }
+            for (Total total : report.totals()) {
+                out.write(',');
+                out.write(csv(total.proofReader() + " " + total.label()));
+                for (String name : names) {
+                    out.write(',');
+                    if (name.equals(total.proofReader())) out.write(csv(total.value().text()));
+                }
+                out.write('\n');
+            }
+        }
+        private String csv(String value) {
+            if (value.isEmpty() || !(value.contains(",") || value.contains("\"") || value.contains("\n")
+                    || value.startsWith(" ") || value.endsWith(" "))) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    },
+    /** A single object with the source name, the proofreader names, the lines and the totals. */
+    JSON {
+        @Override
+        public void write(Report report, String sourceName, Writer out) throws IOException {
+            out.write("{\n  \"source\": ");
+            out.write(json(sourceName));
+            out.write(",\n  \"proofReaders\": [");
+            String separator = "";
+            for (String name : report.proofReaders()) {
+                out.write(separator);
+                out.write(json(name));
+                separator = ", ";
+            }
+            out.write("],\n  \"lines\": [");
+            separator = "\n";
+            for (Row row : report.rows()) {
+                out.write(separator);
+                out.write("    {\"line\": ");
+                out.write(Integer.toString(row.lineNumber()));
+                out.write(", \"text\": ");
+                out.write(json(row.text()));
+                out.write(", \"values\": {");
+                String valueSeparator = "";
+                for (var entry : row.values().entrySet()) {
+                    out.write(valueSeparator);
+                    out.write(json(entry.getKey()));
+                    out.write(": ");
+                    out.write(json(entry.getValue().text()));
+                    valueSeparator = ", ";
+                }
+                out.write("}}");
+                separator = ",\n";
+            }
+            out.write("\n  ],\n  \"totals\": [");
+            separator = "\n";
+            for (Total total : report.totals()) {
+                out.write(separator);
+                out.write(String.format("    {\"proofReader\": %s, \"label\": %s, \"value\": %s}",
+                        json(total.proofReader()), json(total.label()), json(total.value().text())));
+                separator = ",\n";
+            }
+            out.write("\n  ]\n}\n");
+        }
+        private String json(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (char ch : value.toCharArray()) {
+                switch (ch) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                        else sb.append(ch);
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+    };
+
+    /** Write the report for the named source (a file name, as displayed by some proofreaders). */
+    public abstract void write(Report report, String sourceName, Writer out) throws IOException;
+
+    /** Write the report through a single buffered writer; the stream is flushed but not closed. */
+    public void write(Report report, String sourceName, OutputStream outputStream) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream), 64 * 1024);
+        write(report, sourceName, out);
+        out.flush();
+    }
+
+    private static String text(Row row, String name) {
+        ProofReaderValue value = row.values().get(name);
+        return value == null ? "" : value.text();
+    }
+
+    /** Accept lower-case format names. */
+    public static class Converter implements ITypeConverter<ReportFormat> {
+        @Override
+        public ReportFormat convert(String value) {
+            return ReportFormat.valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds whenever the source or one of its dependencies (such as files used by <code>$embed</code>
+ * or <code>$shape</code>) changes. Directories are watched since that is what a {@link WatchService}
+ * supports; events for other files are ignored. Editors tend to save in several steps, so events
+ * are collected until things are quiet for a moment.
+ */
+public class Watcher {
+    private static final long QUIET_MILLIS = 25;
+
+    /** Run one build, answering the timing of each phase and the files it depends upon. */
+    @FunctionalInterface
+    public interface Builder {
+        Build build() throws Exception;
+    }
+
+    /** The outcome of a build. Phases are in order and timed in nanoseconds. */
+    public record Build(String description, Map<String,Long> phases, Set<Path> dependencies) {
+        public long nanos() {
+            return phases.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /** A helper to time consecutive phases of a build. */
+    public static class Phases {
+        private final Map<String,Long> phases = new LinkedHashMap<>();
+        private long start = System.nanoTime();
+
+        public void mark(String phase) {
+            long now = System.nanoTime();
+            phases.merge(phase, now - start, Long::sum);
+            start = now;
+        }
+        public Map<String,Long> get() {
+            return phases;
+        }
+    }
+
+    private final Builder builder;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Set<Path> dependencies = new HashSet<>();
+
+    public Watcher(Builder builder, Path source, PrintStream out, PrintStream err) {
+        this.builder = builder;
+        this.out = out;
+        this.err = err;
+        this.dependencies.add(normalize(source));
+    }
+
+    /** Build once and then again after every change; only returns if the watch service is closed. */
+    public void watch() throws IOException, InterruptedException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Map<Path,WatchKey> directories = new HashMap<>();
+            rebuild();
+            out.println("Watching for changes; press Ctrl-C to stop.");
+            while (true) {
+                for (Path dependency : dependencies) {
+                    Path directory = dependency.getParent();
+                    if (directory != null && !directories.containsKey(directory)) {
+                        directories.put(directory, directory.register(watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+                    }
+                }
+                boolean changed = false;
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    changed |= isDependency(key);
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    rebuild();
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // Done
+        }
+    }
+
+    boolean isDependency(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path) {
+                changed |= dependencies.contains(normalize(directory.resolve(path)));
+            } else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Run a build and report it. Dependencies are only ever added, so a failed build still watches
+     * everything it did before.
+     */
+    public void rebuild() {
+        try {
+            Build build = builder.build();
+            build.dependencies().forEach(path -> dependencies.add(normalize(path)));
+            StringJoiner joiner = new StringJoiner(", ");
+            build.phases().forEach((phase,nanos) -> joiner.add(String.format("%s %.1f ms", phase, Batch.millis(nanos))));
+            out.printf("%s in %.1f ms (%s)\n", build.description(), Batch.millis(build.nanos()), joiner);
+        } catch (Throwable t) {
+            err.printf("Error: %s\n", Main.errorMessage(t));
+        }
+    }
+
+    static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
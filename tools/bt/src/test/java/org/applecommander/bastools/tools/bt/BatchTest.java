@@ -0,0 +1,114 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchTest {
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("batch");
+        for (String name : List.of("a.bas", "b.bin", "notes.txt", "sub/c.BAS", "sub/d.bin")) {
+            Path file = dir.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "10 PRINT\n");
+        }
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted((a,b) -> b.compareTo(a)).toList()) Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testResolveDirectory() throws IOException {
+        assertSources(List.of("a.bas", "sub/c.BAS"), Batch.resolve(List.of(dir.toString()), Batch.TEXT_EXTENSION));
+        assertSources(List.of("b.bin", "sub/d.bin"), Batch.resolve(List.of(dir.toString()), Batch.BINARY_EXTENSION));
+    }
+
+    @Test
+    public void testResolveGlob() throws IOException {
+        assertSources(List.of("a.bas"), Batch.resolve(List.of(dir + "/*.bas"), Batch.TEXT_EXTENSION));
+        // Globs choose their own files, whatever the source extension
+        assertSources(List.of("b.bin", "sub/d.bin"), Batch.resolve(List.of(dir + "/**.bin"), Batch.TEXT_EXTENSION));
+    }
+
+    @Test
+    public void testResolveManifest() throws IOException {
+        Path manifest = Files.writeString(dir.resolve("files.txt"), """
+                # Comments and blank lines are skipped
+
+                a.bas
+                sub
+                *.bas
+                """);
+        // Entries are relative to the manifest and a file is only compiled once
+        assertSources(List.of("a.bas", "c.BAS"), Batch.resolve(List.of("@" + manifest), Batch.TEXT_EXTENSION));
+        assertSources(List.of("a.bas", "d.bin"), Batch.resolve(List.of("@" + manifest), Batch.BINARY_EXTENSION));
+    }
+
+    @Test
+    public void testMissingSource() {
+        for (String spec : List.of(dir.resolve("missing.bas").toString(), dir + "/missing/*.bas")) {
+            try {
+                Batch.resolve(List.of(spec), Batch.TEXT_EXTENSION);
+                fail("Expecting an error for " + spec);
+            } catch (IOException ex) {
+                assertEquals("Batch source not found: " + spec, ex.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testTarget() {
+        Batch.Source text = new Batch.Source(Path.of("src/games/maze.bas"), Path.of("games/maze.bas"));
+        assertEquals(Path.of("src/games/maze.bin").toAbsolutePath().toFile(), text.target(null, ".bin"));
+        assertEquals(new File("out/games/maze.bin"), text.target(Path.of("out"), ".bin"));
+        assertEquals(new File("out/games/maze.as"), text.target(Path.of("out"), ".as"));
+
+        Batch.Source binary = new Batch.Source(Path.of("disk/MAZE.BIN"), Path.of("MAZE.BIN"));
+        assertEquals(new File("out/MAZE.bin"), binary.target(Path.of("out"), ".bin"));
+        assertEquals(Path.of("disk/MAZE.as").toAbsolutePath().toFile(), binary.target(null, ".as"));
+
+        Batch.Source other = new Batch.Source(Path.of("maze.txt"), Path.of("maze.txt"));
+        assertEquals(new File("out/maze.txt.bin"), other.target(Path.of("out"), ".bin"));
+    }
+
+    private void assertSources(List<String> expected, List<Batch.Source> sources) {
+        assertEquals(expected, sources.stream().map(s -> s.relative().toString()).toList());
+        for (Batch.Source source : sources) {
+            assertEquals(source.relative().getFileName(), source.file().getFileName());
+        }
+    }
+}
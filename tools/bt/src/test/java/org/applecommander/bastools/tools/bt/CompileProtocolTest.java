@@ -0,0 +1,121 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.applecommander.bastools.tools.bt.CompileProtocol.Request;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Response;
+import org.junit.Test;
+
+public class CompileProtocolTest {
+    @Test
+    public void testRequestRoundTrip() throws IOException {
+        Request request = new Request("/tmp/program.bas", "10 PRINT \"HI\"\n".getBytes(),
+                CompileProtocol.Tokenizer.CLASSIC, 0x4001, 239, List.of("REMOVE_REM_STATEMENTS", "MERGE_LINES"),
+                true, false);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        request.write(new DataOutputStream(bytes));
+        bytes.write(request.source()); // Trailing data is left for the next request
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Request actual = Request.read(in);
+        assertEquals(request.sourceName(), actual.sourceName());
+        assertArrayEquals(request.source(), actual.source());
+        assertEquals(request.tokenizer(), actual.tokenizer());
+        assertEquals(request.address(), actual.address());
+        assertEquals(request.maxLineLength(), actual.maxLineLength());
+        assertEquals(request.optimizations(), actual.optimizations());
+        assertEquals(request.wrapper(), actual.wrapper());
+        assertEquals(request.debug(), actual.debug());
+        assertEquals(request.source().length, in.available());
+    }
+
+    @Test
+    public void testEndOfStreamIsNoRequest() throws IOException {
+        assertEquals(null, Request.read(new DataInputStream(new ByteArrayInputStream(new byte[0]))));
+    }
+
+    @Test
+    public void testResponseRoundTrip() throws IOException {
+        Map<Integer,Integer> lineAddresses = new TreeMap<>(Map.of(10, 0x801, 20, 0x80f));
+        Response response = new Response(true, new byte[] { 0x0f, 0x08, 0x0a, 0x00 }, lineAddresses,
+                List.of("Optimization: MERGE_LINES"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        response.write(new DataOutputStream(bytes));
+
+        Response actual = Response.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(actual.success());
+        assertArrayEquals(response.data(), actual.data());
+        assertEquals(lineAddresses, actual.lineAddresses());
+        assertEquals(response.diagnostics(), actual.diagnostics());
+    }
+
+    @Test
+    public void testInvalidSizesAreRejected() throws IOException {
+        assertInvalid("Invalid length -1", out -> out.writeInt(-1));
+        assertInvalid("Invalid length 2147483647", out -> out.writeInt(Integer.MAX_VALUE));
+        assertInvalid("Expecting 10 bytes but only 3 arrived", out -> {
+            out.writeInt(10);
+            out.write(new byte[3]);
+        });
+        assertInvalid("Unknown tokenizer: FANCY", out -> {
+            out.writeInt(0);
+            out.writeUTF("FANCY");
+        });
+        assertInvalid("Invalid count 1000000", out -> {
+            out.writeInt(0);
+            out.writeUTF("MODERN");
+            out.writeInt(0x801);
+            out.writeInt(255);
+            out.writeInt(1_000_000);
+        });
+    }
+
+    @FunctionalInterface
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /** Write the start of a request followed by the given (broken) remainder and expect it to be refused. */
+    static void assertInvalid(String message, Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x42545251);
+        out.writeUTF("program.bas");
+        writer.write(out);
+        try {
+            Request.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            fail("Expecting: " + message);
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith(message));
+        }
+    }
+}
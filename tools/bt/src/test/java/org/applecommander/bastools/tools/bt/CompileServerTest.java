@@ -0,0 +1,199 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.Visitors;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.visitors.ByteVisitor;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Request;
+import org.applecommander.bastools.tools.bt.CompileProtocol.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompileServerTest {
+    private static final File SOURCE = new File("src/test/resources/circles.bas");
+
+    private Path directory;
+    private UnixDomainSocketAddress address;
+    private Thread server;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bt-server");
+        address = UnixDomainSocketAddress.of(directory.resolve("bt.sock"));
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        if (server != null) {
+            // Interrupting the accept closes the server channel
+            server.interrupt();
+            server.join(5000);
+        }
+        try (var files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testLoopbackCompileMatchesDirectCompile() throws IOException, InterruptedException {
+        start();
+        Request request = new Request(SOURCE.getAbsolutePath(), Files.readAllBytes(SOURCE.toPath()),
+                CompileProtocol.Tokenizer.MODERN, 0x801, 255, List.of(), false, false);
+        try (SocketChannel channel = connect();
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+            // A connection carries several requests
+            for (int i=0; i<2; i++) {
+                request.write(out);
+                Response response = Response.read(in);
+                assertTrue(response.diagnostics().toString(), response.success());
+
+                Configuration config = Configuration.builder().sourceFile(SOURCE).build();
+                Program program = new Parser(ModernTokenReader.tokenize(SOURCE)).parse();
+                ByteVisitor byteVisitor = Visitors.byteVisitor(config);
+                assertArrayEquals(byteVisitor.dump(program), response.data());
+                assertEquals(byteVisitor.getLineAddresses(), response.lineAddresses());
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedRequestIsAnswered() throws IOException, InterruptedException {
+        start();
+        try (SocketChannel channel = connect();
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+            out.writeInt(0x42545251);
+            out.writeUTF("program.bas");
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            Response response = Response.read(in);
+            assertFalse(response.success());
+            assertEquals(0, response.data().length);
+            assertEquals(List.of("Error: Invalid length 2147483647 (expecting 0 to 16777216)"), response.diagnostics());
+        }
+    }
+
+    @Test
+    public void testCompileErrorIsAnswered() {
+        Request request = new Request("program.bas", "10 PRINT\n".getBytes(),
+                CompileProtocol.Tokenizer.MODERN, 0x801, 255, List.of("NO_SUCH_OPTIMIZATION"), false, false);
+        Response response = CompileServer.compile(request);
+        assertFalse(response.success());
+        assertEquals(Map.of(), response.lineAddresses());
+        assertEquals(1, response.diagnostics().size());
+        assertTrue(response.diagnostics().get(0), response.diagnostics().get(0).contains("NO_SUCH_OPTIMIZATION"));
+    }
+
+    @Test
+    public void testStaleSocketIsDeleted() throws IOException {
+        try (ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.bind(address);
+        }
+        assertTrue(Files.exists(address.getPath()));
+        CompileServer.deleteStaleSocket(address);
+        assertFalse(Files.exists(address.getPath()));
+    }
+
+    @Test
+    public void testLiveSocketIsKept() throws IOException {
+        try (ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.bind(address);
+            assertRefused("A server is already listening on ");
+        }
+    }
+
+    @Test
+    public void testOtherFilesAreKept() throws IOException {
+        Files.writeString(address.getPath(), "10 PRINT \"KEEP ME\"\n");
+        assertRefused("");
+        assertTrue(address.getPath() + " exists and is not a socket", Files.exists(address.getPath()));
+
+        Files.delete(address.getPath());
+        Files.createDirectory(address.getPath());
+        assertRefused("");
+        assertTrue(Files.isDirectory(address.getPath()));
+    }
+
+    private void assertRefused(String prefix) {
+        try {
+            CompileServer.deleteStaleSocket(address);
+            fail("Expecting the socket file to be refused");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith(prefix));
+        }
+    }
+
+    /** Run a server on its own thread. */
+    private void start() {
+        CompileServer compileServer = new CompileServer(address, 2, new PrintStream(new ByteArrayOutputStream()));
+        server = new Thread(() -> {
+            try {
+                compileServer.serve();
+            } catch (IOException ex) {
+                // Stopped
+            }
+        });
+        server.setDaemon(true);
+        server.start();
+    }
+
+    /** Connect to the server, waiting for it to listen. */
+    private SocketChannel connect() throws IOException, InterruptedException {
+        for (int i=0; ; i++) {
+            try {
+                return SocketChannel.open(address);
+            } catch (IOException ex) {
+                if (i == 500) throw ex;
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.applecommander.bastools.api.Configuration;
+import org.applecommander.bastools.api.ModernTokenReader;
+import org.applecommander.bastools.api.Parser;
+import org.applecommander.bastools.api.model.Program;
+import org.applecommander.bastools.api.proofreaders.ComputeAutomaticProofreader;
+import org.applecommander.bastools.api.proofreaders.LineProofReader;
+import org.applecommander.bastools.api.proofreaders.MicrosparcKeyPerfect2;
+import org.applecommander.bastools.api.proofreaders.MicrosparcKeyPerfect4;
+import org.applecommander.bastools.api.proofreaders.MicrosparcKeyPerfect5;
+import org.applecommander.bastools.api.proofreaders.MultiplexedProofReader;
+import org.applecommander.bastools.api.proofreaders.NibbleAppleChecker;
+import org.applecommander.bastools.api.proofreaders.NibbleCheckit;
+import org.junit.Test;
+
+public class ReportFormatTest {
+    private static final File CHECKIT_EXAMPLE = new File("checkit-example.bas");
+    private static final Pattern DIRECTIVE = Pattern.compile("^\\d+\\s*\\$", Pattern.MULTILINE);
+    private static final String CHECKIT_SOURCE = """
+            10 REM RING THE BELL
+            20 FOR J = 1 TO 5:PRINT CHR$ (7):NEXT J
+            30 END
+            """;
+
+    /** A proofreader along with the way it prints its report on its own. */
+    record Case(Function<Configuration,LineProofReader> factory, BiConsumer<Configuration,Program> standalone) {}
+
+    private static final List<Case> CASES = List.of(
+            new Case(NibbleCheckit::new, (c,p) -> new NibbleCheckit(c).addProgram(p)),
+            new Case(ComputeAutomaticProofreader::new, (c,p) -> new ComputeAutomaticProofreader(c).addProgram(p)),
+            new Case(NibbleAppleChecker::new, (c,p) -> new NibbleAppleChecker(c).addProgram(p)),
+            new Case(MicrosparcKeyPerfect2::new, (c,p) -> new MicrosparcKeyPerfect2(c).addProgram(p)),
+            new Case(MicrosparcKeyPerfect4::new, (c,p) -> new MicrosparcKeyPerfect4(c).addProgram(p)),
+            new Case(MicrosparcKeyPerfect5::new, (c,p) -> new MicrosparcKeyPerfect5(c).addProgram(p)));
+
+    /**
+     * The text format must match each proofreader's own output, byte for byte. Sources with
+     * directives are left out since the standalone Key Perfect readers count embedded code as a line.
+     */
+    @Test
+    public void testTextMatchesEachProofReader() throws IOException {
+        File[] sources = new File("src/test/resources").listFiles((dir, name) -> name.endsWith(".bas"));
+        assertFalse(sources == null || sources.length == 0);
+        List<Configuration> configs = new ArrayList<>();
+        for (File source : sources) {
+            if (!DIRECTIVE.matcher(Files.readString(source.toPath())).find()) {
+                configs.add(Configuration.builder().sourceFile(source).build());
+            }
+        }
+        configs.add(Configuration.builder().sourceFile(CHECKIT_EXAMPLE).build());
+        for (Configuration config : configs) {
+            for (Case c : CASES) {
+                String expected = capture(() -> c.standalone().accept(config, program(config)));
+                String name = c.factory().apply(config).getName();
+                assertEquals(config.sourceFile + " " + name, expected, text(ReportFormat.TEXT, config, c.factory()));
+            }
+        }
+    }
+
+    @Test
+    public void testCombinedText() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(CHECKIT_EXAMPLE).build();
+        assertEquals("""
+                Nibble Checkit, Copyright 1988, Microsparc Inc.
+                37 | 10  REM RING THE BELL
+                54 | 20  FOR J = 1 TO 5: PRINT  CHR$ (7): NEXT J
+                91 | 30  END\s
+                TOTAL: 1CB9
+
+                Line# - Line#   CODE-5.0
+                -------------   --------
+                   10 -    30   1F285655
+                PROGRAM TOTAL   1F285655
+                """, text(ReportFormat.TEXT, config, NibbleCheckit::new, MicrosparcKeyPerfect5::new));
+    }
+
+    @Test
+    public void testTable() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(CHECKIT_EXAMPLE).build();
+        assertEquals("""
+                CHECKIT COMPUTE KP5      | LINE
+                ------- ------- -------- +-----
+                37      DE               | 10  REM RING THE BELL
+                54      F3               | 20  FOR J = 1 TO 5: PRINT  CHR$ (7): NEXT J
+                91      EE      1F285655 | 30  END\s
+
+                CHECKIT TOTAL: 1CB9
+                KP5 PROGRAM TOTAL: 1F285655
+                """, text(ReportFormat.TABLE, config, NibbleCheckit::new, ComputeAutomaticProofreader::new,
+                        MicrosparcKeyPerfect5::new));
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(CHECKIT_EXAMPLE).build();
+        assertEquals("""
+                line,text,CHECKIT,KP5
+                10,10  REM RING THE BELL,37,
+                20,20  FOR J = 1 TO 5: PRINT  CHR$ (7): NEXT J,54,
+                30,"30  END ",91,1F285655
+                ,CHECKIT TOTAL,1CB9,
+                ,KP5 PROGRAM TOTAL,,1F285655
+                """, text(ReportFormat.CSV, config, NibbleCheckit::new, MicrosparcKeyPerfect5::new));
+    }
+
+    @Test
+    public void testJson() throws IOException {
+        Configuration config = Configuration.builder().sourceFile(CHECKIT_EXAMPLE).build();
+        assertEquals("""
+                {
+                  "source": "checkit-example.bas",
+                  "proofReaders": ["APPLE-CHECKER"],
+                  "lines": [
+                    {"line": 10, "text": "10  REM RING THE BELL", "values": {}},
+                    {"line": 20, "text": "20  FOR J = 1 TO 5: PRINT  CHR$ (7): NEXT J", "values": {}},
+                    {"line": 30, "text": "30  END ", "values": {}}
+                  ],
+                  "totals": [
+                    {"proofReader": "APPLE-CHECKER", "label": "LENGTH", "value": "001B"},
+                    {"proofReader": "APPLE-CHECKER", "label": "CHECKSUM", "value": "B0"}
+                  ]
+                }
+                """, text(ReportFormat.JSON, config, NibbleAppleChecker::new));
+    }
+
+    @Test
+    public void testConverter() {
+        assertEquals(ReportFormat.CSV, new ReportFormat.Converter().convert("csv"));
+        assertEquals(ReportFormat.JSON, new ReportFormat.Converter().convert("Json"));
+    }
+
+    @SafeVarargs
+    private static String text(ReportFormat format, Configuration config, Function<Configuration,LineProofReader>... factories)
+            throws IOException {
+        List<LineProofReader> proofReaders = List.of(factories).stream().map(f -> f.apply(config)).toList();
+        MultiplexedProofReader.Report report = new MultiplexedProofReader(config, proofReaders).addProgram(program(config));
+        StringWriter out = new StringWriter();
+        format.write(report, config.sourceFile.getName(), out);
+        return out.toString();
+    }
+
+    private static Program program(Configuration config) {
+        try {
+            if (config.sourceFile == CHECKIT_EXAMPLE) {
+                return new Parser(ModernTokenReader.tokenize(new StringReader(CHECKIT_SOURCE))).parse();
+            }
+            return new Parser(ModernTokenReader.tokenize(config.sourceFile)).parse();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String capture(Runnable runnable) {
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            runnable.run();
+        } finally {
+            System.setOut(original);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
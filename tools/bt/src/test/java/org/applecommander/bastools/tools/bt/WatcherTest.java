@@ -0,0 +1,137 @@
+/*
+ * bastools
+ * Copyright (C) 2026  Robert Greene
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.applecommander.bastools.tools.bt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.Watchable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class WatcherTest {
+    private static final Path DIRECTORY = Path.of("project").toAbsolutePath();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void testIsDependency() {
+        Watcher watcher = watcher(() -> build(Set.of()));
+        assertTrue(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_MODIFY, "program.bas")));
+        assertFalse(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_MODIFY, "other.bas")));
+        assertFalse(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_CREATE, "program.bas~")));
+        // Any change may have been lost, so an overflow always rebuilds
+        assertTrue(watcher.isDependency(key(StandardWatchEventKinds.OVERFLOW, null)));
+    }
+
+    @Test
+    public void testRebuildAddsDependencies() {
+        Watcher watcher = watcher(() -> build(Set.of(DIRECTORY.resolve("data/../shapes.st"))));
+        assertFalse(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_MODIFY, "shapes.st")));
+        watcher.rebuild();
+        assertTrue(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_MODIFY, "shapes.st")));
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("Compiled in "));
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFailedRebuildKeepsDependencies() {
+        List<Integer> calls = new ArrayList<>();
+        Watcher watcher = watcher(() -> {
+            calls.add(calls.size());
+            if (calls.size() > 1) {
+                throw new IOException("Unable to read shapes.st", new IOException("shapes.st is missing"));
+            }
+            return build(Set.of(DIRECTORY.resolve("shapes.st")));
+        });
+        watcher.rebuild();
+        watcher.rebuild();
+        assertEquals(2, calls.size());
+        assertEquals("Error: shapes.st is missing\n", err.toString(StandardCharsets.UTF_8));
+        assertTrue(watcher.isDependency(key(StandardWatchEventKinds.ENTRY_MODIFY, "shapes.st")));
+    }
+
+    private Watcher watcher(Watcher.Builder builder) {
+        return new Watcher(builder, DIRECTORY.resolve("program.bas"),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private static Watcher.Build build(Set<Path> dependencies) {
+        Map<String,Long> phases = new LinkedHashMap<>();
+        phases.put("tokenize", 1_000_000L);
+        phases.put("compile", 2_000_000L);
+        return new Watcher.Build("Compiled", phases, dependencies);
+    }
+
+    /** A key for the project directory that holds a single event. */
+    private static WatchKey key(WatchEvent.Kind<?> kind, String name) {
+        WatchEvent<Path> event = new WatchEvent<>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Kind<Path> kind() {
+                return (Kind<Path>) kind;
+            }
+            @Override
+            public int count() {
+                return 1;
+            }
+            @Override
+            public Path context() {
+                return name == null ? null : Path.of(name);
+            }
+        };
+        return new WatchKey() {
+            private boolean valid = true;
+            @Override
+            public boolean isValid() {
+                return valid;
+            }
+            @Override
+            public List<WatchEvent<?>> pollEvents() {
+                return List.of(event);
+            }
+            @Override
+            public boolean reset() {
+                return valid;
+            }
+            @Override
+            public void cancel() {
+                valid = false;
+            }
+            @Override
+            public Watchable watchable() {
+                return DIRECTORY;
+            }
+        };
+    }
+}
@@ -29,10 +29,12 @@ import org.applecommander.bastools.api.Parser;
 import org.applecommander.bastools.api.Visitors;
 import org.applecommander.bastools.api.model.Program;
 import org.applecommander.bastools.api.model.Token;
+import org.applecommander.bastools.api.shapes.BeamSearchVectorization;
 import org.applecommander.bastools.api.shapes.BitmapShape;
 import org.applecommander.bastools.api.shapes.Shape;
 import org.applecommander.bastools.api.shapes.ShapeGenerator;
 import org.applecommander.bastools.api.shapes.ShapeTable;
+import org.applecommander.bastools.api.shapes.ShapeTableOptimizer;
 import org.applecommander.source.DataBufferSource;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Help.Visibility;
@@ -43,6 +45,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
@@ -76,6 +79,15 @@ public class GenerateCommand implements Callable<Void> {
 	@Option(names = "--demo-code", description = "Generate a ProDOS .po image with Applesoft BASIC code demoing the shape table")
 	private boolean demoCodeFlag;
 
+	@Option(names = "--search", paramLabel = "<milliseconds>", description = "Search for shorter encodings of bitmap shapes, spending up to this long on each shape")
+	private Integer searchMillis;
+
+	@Option(names = "--search-width", paramLabel = "<width>", description = "Search for shorter encodings of bitmap shapes with this fixed beam width, giving the same result on every run")
+	private Integer searchWidth;
+
+	@Option(names = "--search-threads", description = "Number of shapes to search at the same time (defaults to number of processors)")
+	private Integer searchThreads;
+
 	@Option(names = { "-o", "--output" }, description = "Write output to file")
 	private Path outputFile;
 	
@@ -87,6 +99,19 @@ public class GenerateCommand implements Callable<Void> {
 	    validateArguments();
 	    
 	    ShapeTable st = stdinFlag ? ShapeGenerator.generate(System.in) : ShapeGenerator.generate(inputFile);
+	    if (searchMillis != null || searchWidth != null) {
+	        ShapeTableOptimizer optimizer = new ShapeTableOptimizer();
+	        if (searchMillis != null) optimizer.budget(Duration.ofMillis(searchMillis));
+	        if (searchWidth != null) optimizer.width(searchWidth);
+	        if (searchThreads != null) optimizer.parallelism(searchThreads);
+	        ShapeTableOptimizer.Result result = optimizer.optimize(st);
+	        // Report goes to stderr as the shape table itself may be on stdout
+	        result.shapes().stream()
+	              .filter(shape -> shape.savedBytes() > 0)
+	              .forEach(shape -> System.err.printf("Search: %s\n", shape));
+	        System.err.printf("Search: %s\n", result);
+	        st = result.shapeTable();
+	    }
 	    
 	    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
 	    st.write(byteStream);
@@ -124,6 +149,19 @@ public class GenerateCommand implements Callable<Void> {
             throw new IOException("Please select ONE of stdin or file");
         }
         
+        if (searchMillis != null && searchMillis < 1) {
+            throw new IOException("Search time must be at least 1 millisecond");
+        }
+        if (searchMillis != null && searchWidth != null) {
+            throw new IOException("Please choose one of --search or --search-width");
+        }
+        if (searchWidth != null && (searchWidth < 1 || searchWidth > BeamSearchVectorization.MAX_WIDTH)) {
+            throw new IOException(String.format("Search width must be 1 to %d", BeamSearchVectorization.MAX_WIDTH));
+        }
+        if (searchThreads != null && searchThreads < 1) {
+            throw new IOException("Search threads must be at least 1");
+        }
+
         if (demoCodeFlag && applesingleFlag) {
             System.err.println("Warning: Demo code and AppleSingle exclusive, ignoring AppleSingle request.");
             applesingleFlag = false;